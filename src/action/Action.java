@@ -1,5 +1,6 @@
 package action;
 
+import database.Database;
 import database.DatabaseTrackable;
 
 public abstract class Action implements DatabaseTrackable {
@@ -13,11 +14,22 @@ public abstract class Action implements DatabaseTrackable {
         return id;
     }
 
+    /**
+     * Checks if the action only reads the database, so it can be executed at the same
+     * time as other read-only actions. Actions are assumed to change the database,
+     * unless overridden.
+     * @return true if the action doesn't change the database
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
     /**
      * Abstract method to implement in derived classes. Executes the action's function.
+     * @param database the database to execute the action on
      * @return the action execution result
      */
-    public abstract String execute();
+    public abstract String execute(Database database);
 
     /**
      * Gets the primary key of the Video, its ID.
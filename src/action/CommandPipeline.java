@@ -0,0 +1,122 @@
+package action;
+
+import action.actions.Command;
+import database.Database;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes runs of commands on a fixed number of shards, each one a single thread with its
+ * own bounded queue. The commands are routed to the shards by username, so all the commands
+ * of a user are executed in order by the same thread, and the user's state is never shared
+ * between threads. The video statistics are updated through concurrent counters, and the
+ * ratings of a video are added under the video's lock.
+ * <p>
+ * The pipeline can be shared by several callers, even working on different databases,
+ * as each call waits only for its own commands.
+ */
+public final class CommandPipeline implements Closeable {
+    /**
+     * The capacity of the queue of each shard.
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final List<BlockingQueue<Runnable>> queues = new ArrayList<>();
+    private final List<Thread> shards = new ArrayList<>();
+
+    public CommandPipeline(final int shardCount) {
+        for (int i = 0; i < shardCount; ++i) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            Thread shard = new Thread(() -> runShard(queue), "command-shard-" + i);
+            shard.setDaemon(true);
+            shard.start();
+
+            queues.add(queue);
+            shards.add(shard);
+        }
+    }
+
+    /**
+     * Executes the tasks of a shard's queue, in order, until the shard is interrupted.
+     * The tasks catch their own failures, so a failing command never stops the shard.
+     * @param queue the queue of the shard
+     */
+    private static void runShard(final BlockingQueue<Runnable> queue) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                queue.take().run();
+            }
+        } catch (InterruptedException e) {
+            // The pipeline has been closed
+        }
+    }
+
+    /**
+     * Executes the given commands on the shards and waits for all of them. The commands of
+     * each user are executed in the given order. If any command fails, the other commands
+     * are still executed and the first failure is rethrown once all of them are done.
+     * @param commands the commands to execute
+     * @param database the database to execute the commands on
+     * @return the outputs of the commands, in the given order
+     */
+    public List<String> execute(final List<Command> commands, final Database database) {
+        String[] outputs = new String[commands.size()];
+        CountDownLatch remaining = new CountDownLatch(commands.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            // Route each command to the shard of its user
+            for (int i = 0; i < commands.size(); ++i) {
+                Command command = commands.get(i);
+                int index = i;
+                int shard = Math.floorMod(String.valueOf(command.getUsername()).hashCode(),
+                        queues.size());
+
+                queues.get(shard).put(() -> {
+                    try {
+                        outputs[index] = command.execute(database);
+                    } catch (Throwable e) {
+                        // Keep the shard alive for the commands queued behind this one
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        remaining.countDown();
+                    }
+                });
+            }
+
+            // Wait for all the commands to be executed
+            remaining.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while executing commands", e);
+        }
+
+        // Rethrow the first failure, now that no command is left waiting
+        Throwable thrown = failure.get();
+        if (thrown instanceof RuntimeException e) {
+            throw e;
+        }
+        if (thrown instanceof Error e) {
+            throw e;
+        }
+        if (thrown != null) {
+            throw new IllegalStateException(thrown);
+        }
+
+        return List.of(outputs);
+    }
+
+    /**
+     * Stops the shards.
+     */
+    @Override
+    public void close() {
+        shards.forEach(Thread::interrupt);
+    }
+}
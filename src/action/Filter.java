@@ -1,12 +1,17 @@
 package action;
 
+import action.managers.search.ActorSearch;
+import action.managers.search.VideoSearch;
 import actor.Actor;
 import actor.ActorsAwards;
+import database.Database;
 import entertainment.Genre;
 import entertainment.Video;
+import utils.Utils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public final class Filter {
     private int year;
@@ -55,12 +60,40 @@ public final class Filter {
         }
     }
 
+    /**
+     * Checks if the given object is a filter with the same conditions.
+     * @param o the object to compare to
+     * @return true if the filters are equal
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Filter filter)) {
+            return false;
+        }
+
+        return year == filter.year && sortByGenre == filter.sortByGenre
+                && genre == filter.genre && words.equals(filter.words)
+                && awards.equals(filter.awards);
+    }
+
+    /**
+     * Gets the hash code of the filter conditions.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(year, sortByGenre, genre, words, awards);
+    }
+
     /**
      * Checks if the given video respects the filter conditions.
      * @param video the video to be filtered
      * @return true if the video respects the filter conditions
      */
-    private boolean filterVideo(final Video video) {
+    public boolean filterVideo(final Video video) {
         // If either filtering by year and years differ,
         // or filtering by genre and video is not of that genre,
         // return false (don't keep the video)
@@ -69,12 +102,34 @@ public final class Filter {
     }
 
     /**
-     * Filters the given list of videos by the filter conditions.
-     * @param videos the videos to be filtered
-     * @return the filtered list of videos
+     * Filters the videos of the given class from the database by the filter conditions.
+     * The search starts from the smallest of the lists of videos of the filtered launch
+     * year or genre, retrieved from the database indexes, if filtering by them.
+     * @param database the database to search in
+     * @param videoClass the class of the videos (Video, Movie or Show)
+     * @return the filtered list of videos, in database order
      */
-    public List<Video> filterVideos(final List<Video> videos) {
+    public List<Video> filterVideos(final Database database,
+                                    final Class<? extends Video> videoClass) {
+        // Get the smallest list of candidates
+        List<Video> videos = null;
+        if (year != -1) {
+            videos = VideoSearch.getAllVideosOfLaunchYear(database, year);
+        }
+        if (sortByGenre) {
+            List<Video> videosOfGenre = VideoSearch.getAllVideosOfGenre(database, genre);
+            if (videos == null || videosOfGenre.size() < videos.size()) {
+                videos = videosOfGenre;
+            }
+        }
+
+        // If not filtering by indexed fields, go through all the videos of the class
+        if (videos == null) {
+            videos = VideoSearch.getAllVideos(database, videoClass);
+        }
+
         return videos.stream()
+                .filter(videoClass::isInstance)
                 .filter(this::filterVideo)
                 .toList();
     }
@@ -105,11 +160,30 @@ public final class Filter {
     }
 
     /**
-     * Filters the given list of actors by the filter conditions.
-     * @param actors the actors to be filtered
-     * @return the filtered list of actors
+     * Filters the actors from the database by the filter conditions. The search starts
+     * from the smallest of the lists of actors having each filtered word in their career
+     * descriptions, retrieved from the database index, if filtering by single words.
+     * @param database the database to search in
+     * @return the filtered list of actors, in database order
      */
-    public List<Actor> filterActors(final List<Actor> actors) {
+    public List<Actor> filterActors(final Database database) {
+        // Get the smallest list of candidates
+        List<Actor> actors = null;
+        for (String word : words) {
+            if (Utils.isSingleWord(word)) {
+                List<Actor> actorsWithWord =
+                        ActorSearch.getAllActorsWithWord(database, word.toLowerCase());
+                if (actors == null || actorsWithWord.size() < actors.size()) {
+                    actors = actorsWithWord;
+                }
+            }
+        }
+
+        // If not filtering by single words, go through all the actors
+        if (actors == null) {
+            actors = ActorSearch.getAllActors(database);
+        }
+
         return actors.stream()
                 .filter(this::filterActor)
                 .toList();
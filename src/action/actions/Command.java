@@ -1,8 +1,12 @@
 package action.actions;
 
 import action.Action;
+import action.managers.search.ActorSearch;
 import action.managers.search.UserSearch;
 import action.managers.search.VideoSearch;
+import database.CommandLog;
+import database.Database;
+import database.ResultCache;
 import entertainment.Video;
 import user.User;
 import common.ActionExceptions;
@@ -33,21 +37,45 @@ public class Command extends Action {
         this.seasonNumber = seasonNumber;
     }
 
+    /**
+     * Gets the username of the user the command is given for, used to route the command
+     * to the pipeline shard of the user.
+     * @return the username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Creates the command recorded by the given log entry.
+     * @param entry the entry of the command log
+     * @return the logged command
+     */
+    public static Command fromLogEntry(final CommandLog.Entry entry) {
+        return new Command(0, Type.values()[entry.type()], entry.username(),
+                entry.title(), entry.grade(), entry.seasonNumber());
+    }
+
     /**
      * Attempts to add the video stored in the command to the given user's favourites list.
      * Writes a success message if the video is added correctly.
+     * @param database the database to execute the command on
      * @param message the message to add text to
      * @param user the user to add the video to favourites
      * @throws ActionExceptions.EntryNotFoundException if the video is not in the database
      * @throws ActionExceptions.AlreadyFavouriteException if it's already in the favourites list
      * @throws ActionExceptions.NotWatchedException if the video hasn't been watched by the user
      */
-    private void favourite(final StringBuilder message, final User user)
+    private void favourite(final Database database, final StringBuilder message,
+                           final User user)
             throws ActionExceptions.EntryNotFoundException,
             ActionExceptions.AlreadyFavouriteException,
             ActionExceptions.NotWatchedException {
         // Add the video to favourites
-        user.addFavourite(title);
+        user.addFavourite(database, title);
+
+        // Move the video in the favourites leaderboard
+        VideoSearch.updateLeaderboard(database, VideoSearch.FAVOURITE_LEADERBOARD, title);
 
         // If successful, create the success message
         message.append("success -> ").append(title).append(" was added as favourite");
@@ -56,14 +84,18 @@ public class Command extends Action {
     /**
      * Attempts to add a view from the given user to the video stored in the command.
      * Writes a success message if the video is viewed.
+     * @param database the database to execute the command on
      * @param message the message to add text to
      * @param user the user to view the video
      * @throws ActionExceptions.EntryNotFoundException if the video is not in the database
      */
-    private void view(final StringBuilder message, final User user)
+    private void view(final Database database, final StringBuilder message, final User user)
             throws ActionExceptions.EntryNotFoundException {
         // View the video
-        int views = user.addView(title);
+        int views = user.addView(database, title);
+
+        // Move the video in the views leaderboard
+        VideoSearch.updateLeaderboard(database, VideoSearch.VIEWS_LEADERBOARD, title);
 
         // If successful, create the success message
         message.append("success -> ").append(title)
@@ -73,6 +105,7 @@ public class Command extends Action {
     /**
      * Attempts to rate the video stored in the command by the given user.
      * Writes a success message if the video is rated correctly.
+     * @param database the database to execute the command on
      * @param message the message to add text to
      * @param user the user to rate the video
      * @param video the video to be rated
@@ -80,7 +113,8 @@ public class Command extends Action {
      * @throws ActionExceptions.NotWatchedException if the video hasn't been watched by the user
      * @throws ActionExceptions.AlreadyRatedException if the video has already been rated by user
      */
-    private void rating(final StringBuilder message, final User user, final Video video)
+    private void rating(final Database database, final StringBuilder message,
+                        final User user, final Video video)
             throws ActionExceptions.EntryNotFoundException,
             ActionExceptions.NotWatchedException,
             ActionExceptions.AlreadyRatedException {
@@ -90,6 +124,14 @@ public class Command extends Action {
         // Increase user rating count
         user.incrementRatingCount();
 
+        // Move the video and the user in the rating leaderboards
+        database.updateLeaderboard(VideoSearch.RATING_LEADERBOARD, video);
+        database.updateLeaderboard(VideoSearch.BEST_RATED_LEADERBOARD, video);
+        database.updateLeaderboard(UserSearch.RATING_COUNT_LEADERBOARD, user);
+
+        // Update the average ratings of the actors cast in the video
+        ActorSearch.updateMeanRatings(database, video);
+
         // If successful, create the success message
         message.append("success -> ").append(title).append(" was rated with ")
                 .append(grade).append(" by ").append(username);
@@ -97,27 +139,42 @@ public class Command extends Action {
 
     /**
      * Executes the command.
+     * @param database the database to execute the command on
      * @return a message with the result of the action execution
      */
     @Override
-    public String execute() {
+    public String execute(final Database database) {
         // Construct the return string
         StringBuilder message = new StringBuilder();
 
         // Get the user/video by the username/title from the database
-        User user = UserSearch.getUserByUsername(username);
-        Video video = VideoSearch.getVideoByTitle(title);
+        User user = UserSearch.getUserByUsername(database, username);
+        Video video = VideoSearch.getVideoByTitle(database, title);
         assert user != null;
         assert video != null;
 
         try {
             // Do the desired action
             switch (type) {
-                case FAVOURITE -> favourite(message, user);
-                case VIEW -> view(message, user);
-                case RATING -> rating(message, user, video);
+                case FAVOURITE -> favourite(database, message, user);
+                case VIEW -> view(database, message, user);
+                case RATING -> rating(database, message, user, video);
                 default -> { }
             }
+
+            // Invalidate the cached results depending on the changed data
+            database.getResultCache().bump(switch (type) {
+                case FAVOURITE -> ResultCache.Domain.FAVOURITES;
+                case VIEW -> ResultCache.Domain.VIEWS;
+                case RATING -> ResultCache.Domain.RATINGS;
+            });
+
+            // Record the successful command in the database's log, if it has one
+            CommandLog commandLog = database.getCommandLog();
+            if (commandLog != null) {
+                commandLog.append(new CommandLog.Entry(
+                        type.ordinal(), username, title, grade, seasonNumber));
+            }
         } catch (ActionExceptions.EntryNotFoundException e) {
             message.append("error -> ").append(username).append(" not found in the database");
         } catch (ActionExceptions.AlreadyFavouriteException e) {
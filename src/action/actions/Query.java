@@ -11,12 +11,20 @@ import action.managers.sort.UserComparators;
 import action.managers.sort.VideoComparators;
 import actor.Actor;
 import actor.ActorsAwards;
+import database.Database;
+import database.Leaderboard;
+import database.ResultCache;
 import entertainment.Genre;
+import entertainment.Movie;
+import entertainment.Show;
 import entertainment.Video;
 import user.User;
 import utils.Utils;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public class Query extends Action {
     /**
@@ -27,38 +35,39 @@ public class Query extends Action {
          * Gets the first n actors sorted in ascending order by the average ratings of the
          * videos they have cast in, then by their names, only after they have been filtered.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<Actor> average(final Query query) {
+        static List<Actor> average(final Query query, final Database database) {
             // Get all the actors and remove the ones with no rated videos
             List<Actor> actors = ActorSearch
-                    .getAllActors().stream()
+                    .getAllActors(database).stream()
                     // Filter out the ones with no ratings
-                    .filter(actor -> actor.getMeanCastInVideoRatings() != 0.0d)
+                    .filter(actor -> actor.getMeanRating() != 0.0d)
                     .toList();
 
-            // Sort the actors by ratings, then by name
-            return SortManager.sortByCriteria(
+            // Get the first n actors, sorted by ratings, then by name
+            return SortManager.sortFirst(
                     actors,
                     new SortManager.SortCriteria<>(
                             query.sortAscending,
                             ActorComparators.MEAN_RATING_COMPARATOR,
                             ActorComparators.NAME_COMPARATOR
-                    ) // Get the first n actors
-            ).subList(0, Math.min(query.number, actors.size()));
+                    ),
+                    query.number
+            );
         }
 
         /**
          * Gets all the actors sorted in ascending order by their total award count,
          * then by their name, only after they have been filtered.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<Actor> awards(final Query query) {
+        static List<Actor> awards(final Query query, final Database database) {
             // Get the filtered actors
-            List<Actor> actors = query.filter.filterActors(
-                    ActorSearch.getAllActors()
-            );
+            List<Actor> actors = query.filter.filterActors(database);
 
             // Sort the actors by award count, then by name
             return SortManager.sortByCriteria(
@@ -75,13 +84,12 @@ public class Query extends Action {
          * Gets all the actors sorted in ascending order by their name,
          * only after they have been filtered.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<Actor> filterDescription(final Query query) {
+        static List<Actor> filterDescription(final Query query, final Database database) {
             // Get the filtered actors
-            List<Actor> actors = query.filter.filterActors(
-                    ActorSearch.getAllActors()
-            );
+            List<Actor> actors = query.filter.filterActors(database);
 
             // Sort the actors by name
             return SortManager.sortByCriteria(
@@ -99,116 +107,156 @@ public class Query extends Action {
      */
     private static class VideoQuery {
         /**
-         * Retrieves videos from the database depending on the given type.
-         * @param type the type of video to retrieve
-         * @return a list of all videos from the database of the specified type
+         * Gets the class of the videos of the given type.
+         * @param type the type of video
+         * @return the class of the videos of the specified type
          */
-        private static List<Video> getVideosByObjectType(final ObjectType type) {
+        private static Class<? extends Video> getVideoClassByObjectType(final ObjectType type) {
             return switch (type) {
-                case VIDEO -> VideoSearch.getAllVideos();
-                case MOVIE -> VideoSearch.getAllMovies();
-                case SHOW -> VideoSearch.getAllShows();
+                case VIDEO -> Video.class;
+                case MOVIE -> Movie.class;
+                case SHOW -> Show.class;
             };
         }
 
+        /**
+         * Gets the first n videos of the given leaderboard, in ascending order of their
+         * metric, then of their name, only after they have been filtered. The leaderboard
+         * leaves out the videos whose metric is 0, just like the queries.
+         * @param query the query to execute
+         * @param database the database to execute the query on
+         * @param leaderboard the leaderboard ranking the videos by the query's metric
+         * @return the query result
+         */
+        private static List<Video> ranked(final Query query, final Database database,
+                                          final Leaderboard<Video> leaderboard) {
+            Class<? extends Video> videoClass = getVideoClassByObjectType(query.objectType);
+
+            return database.retrieveRanked(leaderboard, query.number, query.sortAscending,
+                    video -> videoClass.isInstance(video) && query.filter.filterVideo(video));
+        }
+
         /**
          * Gets the first n videos sorted in ascending order by their total rating,
          * then by their name, only after they have been filtered.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<Video> rating(final Query query) {
+        static List<Video> rating(final Query query, final Database database) {
+            // Walk the rating leaderboard, if the database keeps it
+            if (database.hasLeaderboard(VideoSearch.RATING_LEADERBOARD)) {
+                return ranked(query, database, VideoSearch.RATING_LEADERBOARD);
+            }
+
             List<Video> videos = query.filter
                     // Get the filtered videos of the given type
-                    .filterVideos(getVideosByObjectType(query.objectType)).stream()
+                    .filterVideos(database, getVideoClassByObjectType(query.objectType)).stream()
                     // Remove the unrated ones
                     .filter(video -> video.getTotalRating() != 0.0d)
                     // Make it into a list
                     .toList();
 
-            // Sort the videos by rating, then by name
-            return SortManager.sortByCriteria(
+            // Get the first n videos, sorted by rating, then by name
+            return SortManager.sortFirst(
                     videos,
                     new SortManager.SortCriteria<>(
                             query.sortAscending,
                             VideoComparators.RATING_COMPARATOR,
                             VideoComparators.NAME_COMPARATOR
-                    ) // Get the first n videos
-            ).subList(0, Math.min(query.number, videos.size()));
+                    ),
+                    query.number
+            );
         }
 
         /**
          * Gets the first n videos sorted in ascending order by the number of times they have
          * been added to favourites, then by their name, only after they have been filtered.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<Video> favourite(final Query query) {
+        static List<Video> favourite(final Query query, final Database database) {
+            // Walk the favourites leaderboard, if the database keeps it
+            if (database.hasLeaderboard(VideoSearch.FAVOURITE_LEADERBOARD)) {
+                return ranked(query, database, VideoSearch.FAVOURITE_LEADERBOARD);
+            }
+
             List<Video> videos = query.filter
                     // Get the filtered videos of the given type
-                    .filterVideos(getVideosByObjectType(query.objectType)).stream()
+                    .filterVideos(database, getVideoClassByObjectType(query.objectType)).stream()
                     // Remove the ones that have not been added to favourites by anyone
-                    .filter(video -> VideoSearch.getFavouriteCount(video) != 0)
+                    .filter(video -> VideoSearch.getFavouriteCount(database, video) != 0)
                     // Make it into a list
                     .toList();
 
-            // Sort the videos by favourite count, then by name
-            return SortManager.sortByCriteria(
+            // Get the first n videos, sorted by favourite count, then by name
+            return SortManager.sortFirst(
                     videos,
                     new SortManager.SortCriteria<>(
                             query.sortAscending,
-                            VideoComparators.FAVOURITE_COUNT_COMPARATOR,
+                            VideoComparators.favouriteCountComparator(database),
                             VideoComparators.NAME_COMPARATOR
-                    ) // Get the first n videos
-            ).subList(0, Math.min(query.number, videos.size()));
+                    ),
+                    query.number
+            );
         }
 
         /**
          * Gets the first n videos sorted in ascending order by their duration, then by
          * their name, only after they have been filtered.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<Video> longest(final Query query) {
+        static List<Video> longest(final Query query, final Database database) {
             List<Video> videos = query.filter
                     // Get the filtered videos of the given type
-                    .filterVideos(getVideosByObjectType(query.objectType));
+                    .filterVideos(database, getVideoClassByObjectType(query.objectType));
 
-            // Sort the videos by duration, then by name
-            return SortManager.sortByCriteria(
+            // Get the first n videos, sorted by duration, then by name
+            return SortManager.sortFirst(
                     videos,
                     new SortManager.SortCriteria<>(
                             query.sortAscending,
                             VideoComparators.DURATION_COMPARATOR,
                             VideoComparators.NAME_COMPARATOR
-                    ) // Get the first n videos
-            ).subList(0, Math.min(query.number, videos.size()));
+                    ),
+                    query.number
+            );
         }
 
         /**
          * Gets the first n videos sorted in ascending order by their view count,
          * then by their name, only after they have been filtered.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<Video> mostViewed(final Query query) {
+        static List<Video> mostViewed(final Query query, final Database database) {
+            // Walk the views leaderboard, if the database keeps it
+            if (database.hasLeaderboard(VideoSearch.VIEWS_LEADERBOARD)) {
+                return ranked(query, database, VideoSearch.VIEWS_LEADERBOARD);
+            }
+
             List<Video> videos = query.filter
                     // Get the filtered videos of the given type
-                    .filterVideos(getVideosByObjectType(query.objectType)).stream()
+                    .filterVideos(database, getVideoClassByObjectType(query.objectType)).stream()
                     // Remove the ones that have not been viewed by anyone
-                    .filter(video -> VideoSearch.getViews(video) != 0)
+                    .filter(video -> VideoSearch.getViews(database, video) != 0)
                     // Make it into a list
                     .toList();
 
-            // Sort the videos by views, then by name
-            return SortManager.sortByCriteria(
+            // Get the first n videos, sorted by views, then by name
+            return SortManager.sortFirst(
                     videos,
                     new SortManager.SortCriteria<>(
                             query.sortAscending,
-                            VideoComparators.VIEWS_COMPARATOR,
+                            VideoComparators.viewsComparator(database),
                             VideoComparators.NAME_COMPARATOR
-                    ) // Get the first n videos
-            ).subList(0, Math.min(query.number, videos.size()));
+                    ),
+                    query.number
+            );
         }
     }
 
@@ -217,25 +265,33 @@ public class Query extends Action {
          * Gets the first n users sorted in ascending order by their
          * number of given ratings, then by their name.
          * @param query the query to execute
+         * @param database the database to execute the query on
          * @return the query result
          */
-        static List<User> numberOfRatings(final Query query) {
+        static List<User> numberOfRatings(final Query query, final Database database) {
+            // Walk the rating count leaderboard, if the database keeps it
+            if (database.hasLeaderboard(UserSearch.RATING_COUNT_LEADERBOARD)) {
+                return database.retrieveRanked(UserSearch.RATING_COUNT_LEADERBOARD,
+                        query.number, query.sortAscending, user -> true);
+            }
+
             List<User> users = UserSearch
                     // Get all users
-                    .getAllUsers().stream()
+                    .getAllUsers(database).stream()
                     // Remove the ones with no ratings
                     .filter(user -> user.getRatingCount() != 0)
                     .toList();
 
-            // Sort the users by rating counts, then by name
-            return SortManager.sortByCriteria(
+            // Get the first n users, sorted by rating counts, then by name
+            return SortManager.sortFirst(
                     users,
                     new SortManager.SortCriteria<>(
                             query.sortAscending,
                             UserComparators.RATING_COUNT_COMPARATOR,
                             UserComparators.NAME_COMPARATOR
-                    ) // Get the first n users
-            ).subList(0, Math.min(query.number, users.size()));
+                    ),
+                    query.number
+            );
         }
     }
 
@@ -271,6 +327,30 @@ public class Query extends Action {
         SHOW
     }
 
+    /**
+     * The key of a query's cached result, holding only the fields the result depends on.
+     * @param type the query type
+     * @param objectType the type of the queried videos, or null for other queries
+     * @param number the number of results, or 0 for queries returning all the results
+     * @param sortAscending the sort order
+     * @param filter the filter, or null for queries not filtering
+     */
+    private record CacheKey(Type type, ObjectType objectType, int number,
+                            boolean sortAscending, Filter filter) { }
+
+    /**
+     * The parts of the database the results of the queries depend on.
+     */
+    private static final Set<ResultCache.Domain> CATALOG_DOMAINS =
+            Collections.unmodifiableSet(EnumSet.of(ResultCache.Domain.CATALOG));
+    private static final Set<ResultCache.Domain> RATINGS_DOMAINS = Collections.unmodifiableSet(
+            EnumSet.of(ResultCache.Domain.CATALOG, ResultCache.Domain.RATINGS));
+    private static final Set<ResultCache.Domain> VIEWS_DOMAINS = Collections.unmodifiableSet(
+            EnumSet.of(ResultCache.Domain.CATALOG, ResultCache.Domain.VIEWS));
+    private static final Set<ResultCache.Domain> FAVOURITES_DOMAINS =
+            Collections.unmodifiableSet(
+                    EnumSet.of(ResultCache.Domain.CATALOG, ResultCache.Domain.FAVOURITES));
+
     private final Type type;
     private final int number;
     private final ObjectType objectType;
@@ -341,21 +421,73 @@ public class Query extends Action {
     }
 
     /**
-     * Executes the query.
+     * The query only reads the database.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Gets the key of the query's cached result. Identical queries, and queries differing
+     * only in fields their type ignores, have equal keys.
+     * @return the cache key
+     */
+    private CacheKey getCacheKey() {
+        boolean isVideoQuery = switch (type) {
+            case RATING, FAVOURITE, LONGEST, MOST_VIEWED -> true;
+            default -> false;
+        };
+        boolean returnsAll = type == Type.AWARDS || type == Type.FILTER_DESCRIPTION;
+        boolean isFiltered = isVideoQuery || returnsAll;
+
+        return new CacheKey(type, isVideoQuery ? objectType : null,
+                returnsAll ? 0 : Math.max(number, 0), sortAscending,
+                isFiltered ? filter : null);
+    }
+
+    /**
+     * Gets the parts of the database the result of the query depends on.
+     * @return the domains of the result
+     */
+    private Set<ResultCache.Domain> getDomains() {
+        return switch (type) {
+            case AVERAGE, RATING, NUMBER_OF_RATINGS -> RATINGS_DOMAINS;
+            case FAVOURITE -> FAVOURITES_DOMAINS;
+            case MOST_VIEWED -> VIEWS_DOMAINS;
+            default -> CATALOG_DOMAINS;
+        };
+    }
+
+    /**
+     * Executes the query, reusing the result of an identical query if the parts of the
+     * database it depends on haven't changed since.
+     * @param database the database to execute the query on
      * @return a message with the result of the action execution
      */
     @Override
-    public String execute() {
+    public String execute(final Database database) {
+        return database.getResultCache()
+                .retrieve(getCacheKey(), getDomains(), () -> compute(database));
+    }
+
+    /**
+     * Computes the result of the query.
+     * @param database the database to execute the query on
+     * @return a message with the result of the action execution
+     */
+    private String compute(final Database database) {
         // Retrieve the query
         return "Query result: " + switch (type) {
-            case AVERAGE -> ActorQuery.average(this);
-            case AWARDS -> ActorQuery.awards(this);
-            case FILTER_DESCRIPTION -> ActorQuery.filterDescription(this);
-            case RATING -> VideoQuery.rating(this);
-            case FAVOURITE -> VideoQuery.favourite(this);
-            case LONGEST -> VideoQuery.longest(this);
-            case MOST_VIEWED -> VideoQuery.mostViewed(this);
-            case NUMBER_OF_RATINGS -> UserQuery.numberOfRatings(this);
+            case AVERAGE -> ActorQuery.average(this, database);
+            case AWARDS -> ActorQuery.awards(this, database);
+            case FILTER_DESCRIPTION -> ActorQuery.filterDescription(this, database);
+            case RATING -> VideoQuery.rating(this, database);
+            case FAVOURITE -> VideoQuery.favourite(this, database);
+            case LONGEST -> VideoQuery.longest(this, database);
+            case MOST_VIEWED -> VideoQuery.mostViewed(this, database);
+            case NUMBER_OF_RATINGS -> UserQuery.numberOfRatings(this, database);
             default -> null;
         };
     }
@@ -5,6 +5,7 @@ import action.managers.search.UserSearch;
 import action.managers.search.VideoSearch;
 import action.managers.sort.SortManager;
 import action.managers.sort.VideoComparators;
+import database.Database;
 import entertainment.Genre;
 import entertainment.Video;
 import user.User;
@@ -19,11 +20,42 @@ public class Recommendation extends Action {
     private static class BasicRecommendation {
         /**
          * Recommends the first unwatched video from the database.
-         * @param videos the unwatched videos
+         * @param database the database to search in
+         * @param user the user to recommend the video to
          * @return the title of the video
          */
-        static List<String> standard(final List<Video> videos) {
-            // Check if the list is empty
+        static List<String> standard(final Database database, final User user) {
+            // Get the first unwatched video, from the user's cursor
+            Video video = VideoSearch.getFirstUnwatchedVideo(database, user);
+
+            // Check if there is no unwatched video
+            if (video == null) {
+                return null;
+            }
+
+            // Otherwise, create a success message
+            return List.of(video.getTitle());
+        }
+
+        /**
+         * Recommends the highest rated unwatched video, walking the database's best rated
+         * leaderboard from the top until finding a video the user hasn't watched. Videos with
+         * equal ratings are walked in database order, just like after a stable sort.
+         * @param database the database to search in
+         * @param user the user to recommend the video to
+         * @return the title of the video
+         */
+        static List<String> bestUnseen(final Database database, final User user) {
+            // Sort the unwatched videos, if the database doesn't keep the leaderboard
+            if (!database.hasLeaderboard(VideoSearch.BEST_RATED_LEADERBOARD)) {
+                return bestUnseen(VideoSearch.getUnwatchedVideos(database, user));
+            }
+
+            // Get the first unwatched video of the leaderboard
+            List<Video> videos = database.retrieveRanked(
+                    VideoSearch.BEST_RATED_LEADERBOARD, 1, true, user::hasNotWatched);
+
+            // Check if there is no unwatched video
             if (videos.isEmpty()) {
                 return null;
             }
@@ -65,16 +97,17 @@ public class Recommendation extends Action {
         /**
          * Recommends the first unwatched video from the database, of the genre with the most
          * amount of views and with yet unwatched videos.
+         * @param database the database to read the genre views from
          * @param videos the unwatched videos
          * @return the title of the video
          */
-        static List<String> popular(final List<Video> videos) {
+        static List<String> popular(final Database database, final List<Video> videos) {
             // Get all the genres sorted by views
             List<Genre> sortedGenres = SortManager.sortByCriteria(
                     Arrays.asList(Genre.values()),
                     new SortManager.SortCriteria<>(
                             false,
-                            VideoComparators.GENRE_VIEWS_COMPARATOR
+                            VideoComparators.genreViewsComparator(database)
                     )
             );
 
@@ -96,13 +129,14 @@ public class Recommendation extends Action {
         /**
          * Recommends the first unwatched video from the database, after sorting the videos
          * in descending order by the number of users that have added them to favourites.
+         * @param database the database to read the favourite counts from
          * @param videos the unwatched videos
          * @return the title of the video
          */
-        static List<String> favourite(final List<Video> videos) {
+        static List<String> favourite(final Database database, final List<Video> videos) {
             List<Video> sortedVideos = videos.stream()
                     // Remove the ones that have not been added to favourites by anyone
-                    .filter(video -> VideoSearch.getFavouriteCount(video) != 0)
+                    .filter(video -> VideoSearch.getFavouriteCount(database, video) != 0)
                     // Make it into a list
                     .toList();
 
@@ -116,7 +150,7 @@ public class Recommendation extends Action {
                     sortedVideos,
                     new SortManager.SortCriteria<>(
                             false,
-                            VideoComparators.FAVOURITE_COUNT_COMPARATOR
+                            VideoComparators.favouriteCountComparator(database)
                     ) // Get the first video in the list, and then its title
             ).get(0).getTitle());
         }
@@ -218,17 +252,27 @@ public class Recommendation extends Action {
         }
     }
 
+    /**
+     * The recommendation only reads the database.
+     * @return true
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     /**
      * Executes the recommendation.
+     * @param database the database to execute the recommendation on
      * @return a message with the result of the action execution
      */
     @Override
-    public String execute() {
+    public String execute(final Database database) {
         // Construct the return string
         StringBuilder message = new StringBuilder();
 
         // Get the user by the username from the database
-        User user = UserSearch.getUserByUsername(username);
+        User user = UserSearch.getUserByUsername(database, username);
         assert user != null;
 
         // Check if the user's subscription is correct
@@ -238,19 +282,16 @@ public class Recommendation extends Action {
             return message.toString();
         }
 
-        // Get all the unwatched videos by the user
-        List<Video> videos = VideoSearch.getUnwatchedVideos(
-                VideoSearch.getAllVideos(),
-                user
-        );
-
         // Get the recommendation results
         List<String> result = switch (type) {
-            case STANDARD -> BasicRecommendation.standard(videos);
-            case BEST_UNSEEN -> BasicRecommendation.bestUnseen(videos);
-            case POPULAR -> PremiumRecommendation.popular(videos);
-            case FAVOURITE -> PremiumRecommendation.favourite(videos);
-            case SEARCH -> PremiumRecommendation.search(videos, genre);
+            case STANDARD -> BasicRecommendation.standard(database, user);
+            case BEST_UNSEEN -> BasicRecommendation.bestUnseen(database, user);
+            case POPULAR -> PremiumRecommendation.popular(
+                    database, VideoSearch.getUnwatchedVideos(database, user));
+            case FAVOURITE -> PremiumRecommendation.favourite(
+                    database, VideoSearch.getUnwatchedVideos(database, user));
+            case SEARCH -> PremiumRecommendation.search(
+                    VideoSearch.getUnwatchedVideos(database, user), genre);
         };
 
         // Start writing the message
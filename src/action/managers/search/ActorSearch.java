@@ -2,21 +2,74 @@ package action.managers.search;
 
 import actor.Actor;
 import database.Database;
+import database.SecondaryIndex;
+import entertainment.Video;
 
 import java.util.List;
 
 public final class ActorSearch {
     private ActorSearch() { }
 
+    /**
+     * Index of the actors in the database by the words of their career descriptions.
+     */
+    public static final SecondaryIndex<Actor, String> DESCRIPTION_WORD_INDEX =
+            new SecondaryIndex<>(Actor.class, Actor::getDescriptionWords);
+
+    /**
+     * Index of the actors in the database by the titles of the videos they have cast in.
+     */
+    public static final SecondaryIndex<Actor, String> FILMOGRAPHY_INDEX =
+            new SecondaryIndex<>(Actor.class, Actor::getFilmography);
+
+    /**
+     * Adds the actor indexes to the given database.
+     * @param database the database to index
+     */
+    public static void addIndexes(final Database database) {
+        database.addIndex(DESCRIPTION_WORD_INDEX);
+        database.addIndex(FILMOGRAPHY_INDEX);
+    }
+
     /**
      * Retrieves all actors from the database.
-     * @return the list of actors
+     * @param database the database to search in
+     * @return a read-only list of actors, in database order
+     */
+    public static List<Actor> getAllActors(final Database database) {
+        return database.retrieveRepository(Actor.class).retrieveAll();
+    }
+
+    /**
+     * Retrieves all actors that have cast in the video with the given title,
+     * using the filmography index.
+     * @param database the database to search in
+     * @param title the title of the video
+     * @return a read-only list of actors, in database order
+     */
+    public static List<Actor> getAllActorsCastIn(final Database database, final String title) {
+        return database.retrieveIndexedEntities(FILMOGRAPHY_INDEX, title);
+    }
+
+    /**
+     * Updates the average ratings of the actors that have cast in the given video,
+     * after it has been rated.
+     * @param database the database of the video
+     * @param video the rated video
+     */
+    public static void updateMeanRatings(final Database database, final Video video) {
+        getAllActorsCastIn(database, video.getTitle())
+                .forEach(actor -> actor.updateMeanRating(database));
+    }
+
+    /**
+     * Retrieves all actors whose career description contains the given word,
+     * using the description word index.
+     * @param database the database to search in
+     * @param word the lowercase word to search for
+     * @return a read-only list of actors, in database order
      */
-    public static List<Actor> getAllActors() {
-        return Database.getInstance()
-                .retrieveClassEntities(Actor.class) // Retrieve the Actor entries from the database
-                .values().stream() // Get all the actors and stream them
-                .map(databaseTrackable -> (Actor) databaseTrackable) // Cast them to Actor
-                .toList(); // Make it into a list
+    public static List<Actor> getAllActorsWithWord(final Database database, final String word) {
+        return database.retrieveIndexedEntities(DESCRIPTION_WORD_INDEX, word);
     }
 }
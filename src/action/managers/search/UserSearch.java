@@ -1,7 +1,7 @@
 package action.managers.search;
 
 import database.Database;
-import database.DatabaseTrackable;
+import database.Leaderboard;
 import user.User;
 
 import java.util.List;
@@ -9,32 +9,36 @@ import java.util.List;
 public final class UserSearch {
     private UserSearch() { }
 
+    /**
+     * Leaderboard of the users in the database that have given ratings, by rating count.
+     */
+    public static final Leaderboard<User> RATING_COUNT_LEADERBOARD =
+            new Leaderboard<>(User.class, (database, user) -> user.getRatingCount());
+
+    /**
+     * Adds the user leaderboards to the given database.
+     * @param database the database to rank the users of
+     */
+    public static void addLeaderboards(final Database database) {
+        database.addLeaderboard(RATING_COUNT_LEADERBOARD);
+    }
+
     /**
      * Retrieves all users from the database.
-     * @return the list of users
+     * @param database the database to search in
+     * @return a read-only list of users, in database order
      */
-    public static List<User> getAllUsers() {
-        return Database.getInstance()
-                .retrieveClassEntities(User.class) // Retrieve the User entries from the database
-                .values().stream() // Get all the users and stream them
-                .map(databaseTrackable -> (User) databaseTrackable) // Cast them to User
-                .toList(); // Make it into a list
+    public static List<User> getAllUsers(final Database database) {
+        return database.retrieveRepository(User.class).retrieveAll();
     }
 
     /**
      * Retrieves a user from the database, given the username.
+     * @param database the database to search in
      * @param username the user to retrieve
      * @return the retrieved user
      */
-    public static User getUserByUsername(final String username) {
-        // Retrieve the given user from the database
-        DatabaseTrackable user = Database.getInstance().retrieveEntity(User.class, username);
-
-        try {
-            // Check if the user is of the correct type
-            return (User) user;
-        } catch (ClassCastException e) {
-            return null;
-        }
+    public static User getUserByUsername(final Database database, final String username) {
+        return database.retrieveEntity(User.class, username);
     }
 }
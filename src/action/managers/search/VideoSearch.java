@@ -1,117 +1,231 @@
 package action.managers.search;
 
 import database.Database;
-import database.DatabaseTrackable;
+import database.Leaderboard;
+import database.Repository;
+import database.SecondaryIndex;
 import entertainment.Genre;
 import entertainment.Movie;
 import entertainment.Show;
 import entertainment.Video;
 import user.User;
 
+import java.util.BitSet;
 import java.util.List;
 
 public final class VideoSearch {
     private VideoSearch() { }
 
+    /**
+     * Index of the videos in the database by their genres.
+     */
+    public static final SecondaryIndex<Video, Genre> GENRE_INDEX =
+            new SecondaryIndex<>(Video.class, Video::getGenres);
+
+    /**
+     * Index of the videos in the database by their launch year.
+     */
+    public static final SecondaryIndex<Video, Integer> LAUNCH_YEAR_INDEX =
+            SecondaryIndex.singleKey(Video.class, Video::getLaunchYear);
+
+    /**
+     * Leaderboard of the rated videos in the database, by their total rating.
+     */
+    public static final Leaderboard<Video> RATING_LEADERBOARD =
+            new Leaderboard<>(Video.class, (database, video) -> video.getTotalRating());
+
+    /**
+     * Leaderboard of the videos in the database added to favourites, by favourite count.
+     */
+    public static final Leaderboard<Video> FAVOURITE_LEADERBOARD =
+            new Leaderboard<>(Video.class, VideoSearch::getFavouriteCount);
+
+    /**
+     * Leaderboard of the watched videos in the database, by their total views.
+     */
+    public static final Leaderboard<Video> VIEWS_LEADERBOARD =
+            new Leaderboard<>(Video.class, VideoSearch::getViews);
+
+    /**
+     * Leaderboard of all the videos in the database from the highest rated, the ones
+     * with equal ratings in database order. The metric is the negated rating, so walking
+     * the stable leaderboard in ascending order keeps the ties in database order.
+     */
+    public static final Leaderboard<Video> BEST_RATED_LEADERBOARD = Leaderboard.stable(
+            Video.class, (database, video) -> 0.0d - video.getTotalRating());
+
+    /**
+     * Adds the video indexes to the given database.
+     * @param database the database to index
+     */
+    public static void addIndexes(final Database database) {
+        database.addIndex(GENRE_INDEX);
+        database.addIndex(LAUNCH_YEAR_INDEX);
+    }
+
+    /**
+     * Adds the video leaderboards to the given database.
+     * @param database the database to rank the videos of
+     */
+    public static void addLeaderboards(final Database database) {
+        database.addLeaderboard(RATING_LEADERBOARD);
+        database.addLeaderboard(FAVOURITE_LEADERBOARD);
+        database.addLeaderboard(VIEWS_LEADERBOARD);
+        database.addLeaderboard(BEST_RATED_LEADERBOARD);
+    }
+
+    /**
+     * Moves the video with the given title in the given leaderboard, after its metric
+     * has changed. Does nothing if the video isn't in the database yet.
+     * @param database the database of the video
+     * @param leaderboard the leaderboard to update
+     * @param title the title of the video
+     */
+    public static void updateLeaderboard(final Database database,
+                                         final Leaderboard<Video> leaderboard,
+                                         final String title) {
+        Video video = getVideoByTitle(database, title);
+        if (video != null) {
+            database.updateLeaderboard(leaderboard, video);
+        }
+    }
+
     /**
      * Retrieves all videos from the database.
-     * @return a list of videos
+     * @param database the database to search in
+     * @return a read-only list of videos, in database order
      */
-    public static List<Video> getAllVideos() {
-        return Database.getInstance()
-                .retrieveClassEntities(Video.class) // Retrieve the Video entries from the database
-                .values().stream() // Get all the videos and stream them
-                .map(databaseTrackable -> (Video) databaseTrackable) // Cast them to Video
-                .toList(); // Make it into a list
+    public static List<Video> getAllVideos(final Database database) {
+        return database.retrieveRepository(Video.class).retrieveAll();
+    }
+
+    /**
+     * Retrieves all videos of the given class from the database.
+     * @param database the database to search in
+     * @param videoClass the class of the videos (Video, Movie or Show)
+     * @return a read-only list of videos, in database order
+     */
+    public static List<Video> getAllVideos(final Database database,
+                                           final Class<? extends Video> videoClass) {
+        // If all the videos are requested, don't use a partition
+        if (videoClass == Video.class) {
+            return getAllVideos(database);
+        }
+
+        // Get the videos of the given class from their partition
+        return database.retrieveRepository(Video.class)
+                .retrievePartition(videoClass);
     }
 
     /**
      * Retrieves all movies from the database.
-     * @return a list of movies
+     * @param database the database to search in
+     * @return a read-only list of movies, in database order
      */
-    public static List<Video> getAllMovies() {
-        // Get all the videos in the database
-        return getAllVideos().stream()
-                // Check if the current video is an instance of a Movie
-                .filter(video -> video instanceof Movie)
-                .toList();
+    public static List<Video> getAllMovies(final Database database) {
+        return getAllVideos(database, Movie.class);
     }
 
     /**
      * Retrieves all shows from the database.
-     * @return a list of shows
+     * @param database the database to search in
+     * @return a read-only list of shows, in database order
      */
-    public static List<Video> getAllShows() {
-        // Get all the videos in the database
-        return getAllVideos().stream()
-                // Check if the current video is an instance of a Show
-                .filter(video -> video instanceof Show)
-                .toList();
+    public static List<Video> getAllShows(final Database database) {
+        return getAllVideos(database, Show.class);
+    }
+
+    /**
+     * Retrieves all videos of the given genre from the database, using the genre index.
+     * @param database the database to search in
+     * @param genre the genre of the videos
+     * @return a read-only list of videos, in database order
+     */
+    public static List<Video> getAllVideosOfGenre(final Database database, final Genre genre) {
+        return database.retrieveIndexedEntities(GENRE_INDEX, genre);
+    }
+
+    /**
+     * Retrieves all videos launched in the given year from the database,
+     * using the launch year index.
+     * @param database the database to search in
+     * @param launchYear the launch year of the videos
+     * @return a read-only list of videos, in database order
+     */
+    public static List<Video> getAllVideosOfLaunchYear(final Database database,
+                                                       final int launchYear) {
+        return database.retrieveIndexedEntities(LAUNCH_YEAR_INDEX, launchYear);
     }
 
     /**
      * Retrieves a video from the database, given the title.
+     * @param database the database to search in
      * @param title to video to retrieve
      * @return the retrieved video
      */
-    public static Video getVideoByTitle(final String title) {
-        // Retrieve the given video from the database
-        DatabaseTrackable video = Database.getInstance().retrieveEntity(Video.class, title);
-
-        try {
-            // Check if the video is of the correct type
-            return (Video) video;
-        } catch (ClassCastException e) {
-            return null;
-        }
+    public static Video getVideoByTitle(final Database database, final String title) {
+        return database.retrieveEntity(Video.class, title);
     }
 
     /**
-     * Gets all the users from the database and for each of them, checks if
-     * the given video is found in their favourites list.
+     * Gets the number of users that have added the given video to their favourites list,
+     * as kept up to date by the database's video statistics.
+     * @param database the database to search in
      * @param video the video to search for
      * @return the number of users with the given video in their favourites list
      */
-    public static long getFavouriteCount(final Video video) {
-        // Get all users
-        List<User> users = UserSearch.getAllUsers();
-
-        // Check if they've added the given video to their favourites
-        return users.stream()
-                // Remove the users that haven't added the given video to favourites
-                .filter(user -> user.hasFavourite(video.getTitle()))
-                // Count them
-                .count();
+    public static long getFavouriteCount(final Database database, final Video video) {
+        return database.getVideoStatistics().getFavouriteCount(video.getTitle());
     }
 
     /**
-     * Gets all the users from the database and for each of them, counts how
-     * many times the user has viewed the given video, if any.
+     * Gets the total number of times the given video has been viewed by all the users,
+     * as kept up to date by the database's video statistics.
+     * @param database the database to search in
      * @param video the video to search for
      * @return the number of views of the given video
      */
-    public static int getViews(final Video video) {
-        // Get all users
-        List<User> users = UserSearch.getAllUsers();
+    public static int getViews(final Database database, final Video video) {
+        return database.getVideoStatistics().getViews(video.getTitle());
+    }
 
-        // Add all the views (of the given video) of all the users
-        return users.stream()
-                // Get the view count for each user of the current video
-                .map(user -> user.getViews(video.getTitle()))
-                // Add all the views together
-                .reduce(0, Integer::sum);
+    /**
+     * Gets the first video in the database the given user hasn't watched, using the
+     * user's cursor instead of going through all the videos.
+     * @param database the database to search in
+     * @param user the user to search for
+     * @return the first unwatched video, or null if the user has watched all the videos
+     */
+    public static Video getFirstUnwatchedVideo(final Database database, final User user) {
+        return user.getFirstUnwatchedVideo(getAllVideos(database));
     }
 
     /**
-     * Gets all unwatched videos, found in the given videos list, by the given user.
-     * @param videos the videos to search through
+     * Gets all the videos in the database the given user hasn't watched, scanning the clear
+     * bits of the user's watched bitset instead of checking every video. The IDs are assigned
+     * in the order the titles are first seen, so the videos are put back in database order.
+     * @param database the database to search in
      * @param user the user to search for
-     * @return a list of unwatched videos
+     * @return a list of unwatched videos, in database order
      */
-    public static List<Video> getUnwatchedVideos(final List<Video> videos, final User user) {
-        return videos.stream() // Stream the videos
-                .filter(video -> user.hasNotWatched(video.getTitle())) // Get the unwatched videos
-                .toList(); // Turn it into a list
+    public static List<Video> getUnwatchedVideos(final Database database, final User user) {
+        Repository<Video> repository = database.retrieveRepository(Video.class);
+        List<Video> videos = repository.retrieveAll();
+        int idCount = repository.retrieveIdKeys().size();
+
+        // Mark the database positions of the videos with unwatched IDs
+        BitSet positions = new BitSet(videos.size());
+        for (int id = user.nextUnwatchedId(0); id < idCount; id = user.nextUnwatchedId(id + 1)) {
+            int position = repository.retrievePosition(id);
+            if (position >= 0) {
+                positions.set(position);
+            }
+        }
+
+        // Get the videos at the marked positions
+        return positions.stream()
+                .mapToObj(videos::get)
+                .toList();
     }
 
     /**
@@ -128,23 +242,13 @@ public final class VideoSearch {
     }
 
     /**
-     * Gets all videos of the given genre from the database, then adds all
-     * the views of all the found videos.
+     * Gets the total view count of the videos of the given genre from the database,
+     * as kept up to date by the database's video statistics.
+     * @param database the database to search in
      * @param genre the genre to search for
      * @return the total view count of the videos of the given genre
      */
-    public static int getGenreViews(final Genre genre) {
-        // Get all videos of the given genre
-        List<Video> videos = getVideosOfGenre(
-                getAllVideos(),
-                genre
-        );
-
-        // Get all the videos' views
-        return videos.stream()
-                // Get the current video's views
-                .map(VideoSearch::getViews)
-                // Add all the views together
-                .reduce(0, Integer::sum);
+    public static int getGenreViews(final Database database, final Genre genre) {
+        return database.getVideoStatistics().getGenreViews(genre);
     }
 }
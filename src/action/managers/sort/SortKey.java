@@ -0,0 +1,96 @@
+package action.managers.sort;
+
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A comparator that compares objects by a key extracted from them. The SortManager
+ * extracts the key of each element only once per sort, instead of once per comparison.
+ * @param <T> the type of object to extract the key from
+ */
+public final class SortKey<T> implements Comparator<T> {
+    private final ToDoubleFunction<? super T> numericKey;
+    private final Function<? super T, ? extends Comparable<?>> comparableKey;
+
+    private SortKey(final ToDoubleFunction<? super T> numericKey,
+                    final Function<? super T, ? extends Comparable<?>> comparableKey) {
+        this.numericKey = numericKey;
+        this.comparableKey = comparableKey;
+    }
+
+    /**
+     * Creates a sort key comparing objects by a numeric value. Integer values are
+     * compared exactly, as long as they fit in the mantissa of a double.
+     * @param numericKey the function extracting the value
+     * @param <T> the type of object to extract the key from
+     * @return the new sort key
+     */
+    public static <T> SortKey<T> numeric(final ToDoubleFunction<? super T> numericKey) {
+        return new SortKey<>(numericKey, null);
+    }
+
+    /**
+     * Creates a sort key comparing objects by a value with a natural ordering.
+     * @param comparableKey the function extracting the value
+     * @param <T> the type of object to extract the key from
+     * @param <U> the type of the value
+     * @return the new sort key
+     */
+    public static <T, U extends Comparable<? super U>> SortKey<T> comparable(
+            final Function<? super T, ? extends U> comparableKey) {
+        return new SortKey<>(null, comparableKey);
+    }
+
+    /**
+     * Checks if the key is numeric.
+     * @return true if the key was created from a numeric value
+     */
+    boolean isNumeric() {
+        return numericKey != null;
+    }
+
+    /**
+     * Extracts the numeric key of the given object.
+     * @param object the object to extract the key from
+     * @return the numeric key
+     */
+    double extractNumeric(final T object) {
+        return numericKey.applyAsDouble(object);
+    }
+
+    /**
+     * Extracts the comparable key of the given object.
+     * @param object the object to extract the key from
+     * @return the comparable key
+     */
+    Comparable<?> extractComparable(final T object) {
+        return comparableKey.apply(object);
+    }
+
+    /**
+     * Compares two keys previously extracted by this sort key.
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the result of the comparison
+     */
+    @SuppressWarnings("unchecked")
+    static int compareComparables(final Comparable<?> key1, final Comparable<?> key2) {
+        return ((Comparable<Object>) key1).compareTo(key2);
+    }
+
+    /**
+     * Compares two objects by their keys.
+     * @param obj1 the first object
+     * @param obj2 the second object
+     * @return the result of the comparison
+     */
+    @Override
+    public int compare(final T obj1, final T obj2) {
+        if (isNumeric()) {
+            return Double.compare(extractNumeric(obj1), extractNumeric(obj2));
+        }
+
+        return compareComparables(extractComparable(obj1), extractComparable(obj2));
+    }
+}
@@ -1,12 +1,41 @@
 package action.managers.sort;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 public final class SortManager {
     private SortManager() { }
 
+    /**
+     * The minimum ratio between the size of the list and the number of requested elements
+     * for which selecting the first elements with a bounded heap is preferred to sorting.
+     */
+    private static final int SELECTION_RATIO = 4;
+
+    /**
+     * An element of a list, along with its position in the list and
+     * the keys extracted from it by the sort criteria.
+     * @param <T> the type of the element
+     */
+    private static final class KeyedElement<T> {
+        private final T element;
+        private final int index;
+        private final double[] numericKeys;
+        private final Comparable<?>[] comparableKeys;
+
+        KeyedElement(final T element, final int index, final double[] numericKeys,
+                     final Comparable<?>[] comparableKeys) {
+            this.element = element;
+            this.index = index;
+            this.numericKeys = numericKeys;
+            this.comparableKeys = comparableKeys;
+        }
+    }
+
     /**
      * Class used by the SortManager, holding the comparators and the ordering.
      * @param <T> the type of object to apply the comparators to
@@ -51,10 +80,98 @@ public final class SortManager {
             // The objects are 'equal' in terms of the given comparators
             return 0;
         }
+
+        /**
+         * Extracts the keys of all the sort key comparators from the given element.
+         * The other comparators are applied directly on the element when comparing.
+         * @param element the element to extract the keys from
+         * @param index the position of the element in its list
+         * @return the element along with its keys
+         */
+        private KeyedElement<T> extractKeys(final T element, final int index) {
+            double[] numericKeys = new double[comparators.size()];
+            Comparable<?>[] comparableKeys = new Comparable<?>[comparators.size()];
+
+            for (int i = 0; i < comparators.size(); ++i) {
+                if (comparators.get(i) instanceof SortKey<T> key) {
+                    if (key.isNumeric()) {
+                        numericKeys[i] = key.extractNumeric(element);
+                    } else {
+                        comparableKeys[i] = key.extractComparable(element);
+                    }
+                }
+            }
+
+            return new KeyedElement<>(element, index, numericKeys, comparableKeys);
+        }
+
+        /**
+         * Compares two elements the same way as compare(), using their extracted keys.
+         * @param obj1 the first element
+         * @param obj2 the second element
+         * @return the final result of the comparisons
+         */
+        private int compareKeys(final KeyedElement<T> obj1, final KeyedElement<T> obj2) {
+            int ordering = sortAscending ? 1 : -1;
+
+            for (int i = 0; i < comparators.size(); ++i) {
+                int result;
+
+                // Compare the extracted keys, or the elements themselves
+                if (comparators.get(i) instanceof SortKey<T> key) {
+                    result = key.isNumeric()
+                            ? Double.compare(obj1.numericKeys[i], obj2.numericKeys[i])
+                            : SortKey.compareComparables(
+                                    obj1.comparableKeys[i], obj2.comparableKeys[i]);
+                } else {
+                    result = comparators.get(i).compare(obj1.element, obj2.element);
+                }
+
+                // If the objects are 'equal', go to the next comparator
+                if (result != 0) {
+                    return ordering * result;
+                }
+            }
+
+            // The objects are 'equal' in terms of the given comparators
+            return 0;
+        }
+    }
+
+    /**
+     * Extracts the sort keys of every element of the given list.
+     * @param list the list of elements
+     * @param criteria the criteria holding the sort keys
+     * @param <T> the type of the elements
+     * @return the elements along with their keys, in the same order
+     */
+    private static <T> ArrayList<KeyedElement<T>> extractKeys(final List<T> list,
+                                                             final SortCriteria<T> criteria) {
+        ArrayList<KeyedElement<T>> keyedElements = new ArrayList<>(list.size());
+        int index = 0;
+        for (T element : list) {
+            keyedElements.add(criteria.extractKeys(element, index++));
+        }
+
+        return keyedElements;
     }
 
     /**
-     * Sorts the given list by the given criteria.
+     * Gets the elements out of the given list of keyed elements.
+     * @param keyedElements the list of keyed elements
+     * @param <T> the type of the elements
+     * @return a read-only list of the elements, in the same order
+     */
+    private static <T> List<T> unwrap(final List<KeyedElement<T>> keyedElements) {
+        ArrayList<T> elements = new ArrayList<>(keyedElements.size());
+        keyedElements.forEach(keyedElement -> elements.add(keyedElement.element));
+
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Sorts the given list by the given criteria. The keys of the elements are extracted
+     * only once, before sorting. The sort is stable.
      * @param listToSort the list to be sorted
      * @param criteria the criteria to sort by
      * @param <T> the type of the compared objects
@@ -62,8 +179,61 @@ public final class SortManager {
      */
     public static <T> List<T> sortByCriteria(final List<T> listToSort,
                                              final SortCriteria<T> criteria) {
-        return listToSort.stream()
-                .sorted(criteria)
-                .toList();
+        ArrayList<KeyedElement<T>> keyedElements = extractKeys(listToSort, criteria);
+        keyedElements.sort(criteria::compareKeys);
+
+        return unwrap(keyedElements);
+    }
+
+    /**
+     * Gets the first elements of the given list, as if the list was sorted by the given
+     * criteria. If the count is much smaller than the size of the list, the elements are
+     * selected with a bounded heap instead of sorting the whole list. Elements considered
+     * equal by the criteria keep their relative order, just like when sorting.
+     * @param listToSort the list to select the elements from
+     * @param criteria the criteria to sort by
+     * @param count the number of elements to get
+     * @param <T> the type of the compared objects
+     * @return the first elements of the sorted list
+     */
+    public static <T> List<T> sortFirst(final List<T> listToSort,
+                                        final SortCriteria<T> criteria, final int count) {
+        // If there are no elements to get, return an empty list
+        if (count <= 0) {
+            return List.of();
+        }
+
+        // If most of the list is requested, sort it entirely
+        if ((long) count * SELECTION_RATIO >= listToSort.size()) {
+            List<T> sortedList = sortByCriteria(listToSort, criteria);
+            return sortedList.subList(0, Math.min(count, sortedList.size()));
+        }
+
+        // Order the elements by the criteria, then by their position in the list
+        Comparator<KeyedElement<T>> order = (first, second) -> {
+            int result = criteria.compareKeys(first, second);
+            return result != 0 ? result : Integer.compare(first.index, second.index);
+        };
+
+        // Keep the first 'count' elements in a heap with the last of them on top
+        PriorityQueue<KeyedElement<T>> heap = new PriorityQueue<>(count + 1, order.reversed());
+        int index = 0;
+        for (T element : listToSort) {
+            heap.add(criteria.extractKeys(element, index++));
+
+            // Remove the element that is no longer among the first ones
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+
+        // Empty the heap, from the last element to the first one
+        ArrayList<KeyedElement<T>> firstElements = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            firstElements.add(heap.poll());
+        }
+
+        Collections.reverse(firstElements);
+        return unwrap(firstElements);
     }
 }
@@ -2,16 +2,14 @@ package action.managers.sort;
 
 import user.User;
 
-import java.util.Comparator;
-
 public final class UserComparators {
     private UserComparators() { }
 
     // Used for comparing usernames
-    public static final Comparator<User> NAME_COMPARATOR =
-            Comparator.comparing(User::getUsername);
+    public static final SortKey<User> NAME_COMPARATOR =
+            SortKey.comparable(User::getUsername);
 
     // Used for comparing rating counts
-    public static final Comparator<User> RATING_COUNT_COMPARATOR =
-            Comparator.comparingInt(User::getRatingCount);
+    public static final SortKey<User> RATING_COUNT_COMPARATOR =
+            SortKey.numeric(User::getRatingCount);
 }
@@ -1,35 +1,49 @@
 package action.managers.sort;
 
 import action.managers.search.VideoSearch;
+import database.Database;
 import entertainment.Genre;
 import entertainment.Video;
 
-import java.util.Comparator;
-
 public final class VideoComparators {
     private VideoComparators() { }
 
     // Used for comparing usernames
-    public static final Comparator<Video> NAME_COMPARATOR =
-            Comparator.comparing(Video::getTitle);
+    public static final SortKey<Video> NAME_COMPARATOR =
+            SortKey.comparable(Video::getTitle);
 
     // Used for comparing ratings
-    public static final Comparator<Video> RATING_COMPARATOR =
-            Comparator.comparingDouble(Video::getTotalRating);
-
-    // Used for comparing favourite counts
-    public static final Comparator<Video> FAVOURITE_COUNT_COMPARATOR =
-            Comparator.comparingLong(VideoSearch::getFavouriteCount);
+    public static final SortKey<Video> RATING_COMPARATOR =
+            SortKey.numeric(Video::getTotalRating);
 
     // Used for comparing durations
-    public static final Comparator<Video> DURATION_COMPARATOR =
-            Comparator.comparingInt(Video::getDuration);
-
-    // Used for comparing views
-    public static final Comparator<Video> VIEWS_COMPARATOR =
-            Comparator.comparingInt(VideoSearch::getViews);
-
-    // Used for comparing genres by views
-    public static final Comparator<Genre> GENRE_VIEWS_COMPARATOR =
-            Comparator.comparingInt(VideoSearch::getGenreViews);
+    public static final SortKey<Video> DURATION_COMPARATOR =
+            SortKey.numeric(Video::getDuration);
+
+    /**
+     * Used for comparing favourite counts, as kept by the given database.
+     * @param database the database to read the favourite counts from
+     * @return the sort key
+     */
+    public static SortKey<Video> favouriteCountComparator(final Database database) {
+        return SortKey.numeric(video -> VideoSearch.getFavouriteCount(database, video));
+    }
+
+    /**
+     * Used for comparing views, as kept by the given database.
+     * @param database the database to read the views from
+     * @return the sort key
+     */
+    public static SortKey<Video> viewsComparator(final Database database) {
+        return SortKey.numeric(video -> VideoSearch.getViews(database, video));
+    }
+
+    /**
+     * Used for comparing genres by views, as kept by the given database.
+     * @param database the database to read the genre views from
+     * @return the sort key
+     */
+    public static SortKey<Genre> genreViewsComparator(final Database database) {
+        return SortKey.numeric(genre -> VideoSearch.getGenreViews(database, genre));
+    }
 }
@@ -1,14 +1,18 @@
 package actor;
 
 import action.managers.search.VideoSearch;
+import database.Database;
 import database.DatabaseTrackable;
 import entertainment.Video;
+import utils.Utils;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,11 +22,23 @@ public final class Actor implements DatabaseTrackable {
     private final HashSet<String> filmography;
     private final HashMap<ActorsAwards, Integer> awards;
 
+    /**
+     * The lowercase words of the career description.
+     */
+    private final Set<String> descriptionWords;
+
+    /**
+     * The average rating of the rated videos the actor has cast in, kept up to date
+     * whenever one of them is rated.
+     */
+    private double meanRating;
+
     public Actor(final String name, final String careerDescription,
                  final List<String> filmography, final Map<ActorsAwards, Integer> awards) {
         // Set the basic information
         this.name = name;
         this.careerDescription = careerDescription;
+        this.descriptionWords = Utils.splitIntoWords(careerDescription.toLowerCase());
 
         // Add all the elements in the filmography list to the hashset
         this.filmography = new HashSet<>();
@@ -37,15 +53,54 @@ public final class Actor implements DatabaseTrackable {
         return name;
     }
 
+    public String getCareerDescription() {
+        return careerDescription;
+    }
+
+    /**
+     * Gets the titles of the videos the actor has cast in.
+     * @return a read-only view of the filmography
+     */
+    public Set<String> getFilmography() {
+        return Collections.unmodifiableSet(filmography);
+    }
+
+    /**
+     * Gets the awards the actor has received, with their counts.
+     * @return a read-only view of the awards
+     */
+    public Map<ActorsAwards, Integer> getAwards() {
+        return Collections.unmodifiableMap(awards);
+    }
+
+    /**
+     * Gets the average rating of the rated videos the actor has cast in.
+     * @return the average of the videos' ratings, or 0 if none of them are rated
+     */
+    public double getMeanRating() {
+        return meanRating;
+    }
+
+    /**
+     * Recalculates the average rating of the rated videos the actor has cast in, after one
+     * of them has been rated. The actor's lock makes the last update see all the ratings
+     * that happened before it, even if videos of the actor are rated at the same time.
+     * @param database the database of the videos
+     */
+    public synchronized void updateMeanRating(final Database database) {
+        meanRating = computeMeanRating(database);
+    }
+
     /**
      * Gets the ratings of all the videos the actor has cast in and calculates
      * the average of the rated videos' ratings.
+     * @param database the database of the videos
      * @return the average of all the videos' ratings
      */
-    public Double getMeanCastInVideoRatings() {
+    private double computeMeanRating(final Database database) {
         return filmography.stream()
                 // Get each video and calculate the total rating
-                .map(VideoSearch::getVideoByTitle)
+                .map(title -> VideoSearch.getVideoByTitle(database, title))
                 // Check for videos not in the database
                 .filter(Objects::nonNull)
                 // Get the videos' total ratings
@@ -78,11 +133,26 @@ public final class Actor implements DatabaseTrackable {
     }
 
     /**
-     * Checks if the actor's career description contains the given word.
+     * Gets the words of the actor's career description.
+     * @return a read-only set of the lowercase words of the description
+     */
+    public Set<String> getDescriptionWords() {
+        return Collections.unmodifiableSet(descriptionWords);
+    }
+
+    /**
+     * Checks if the actor's career description contains the given word. Single words
+     * are searched for in the words of the description, while other keywords are
+     * searched for in the description itself.
      * @param word the word to search for
      * @return true if the word is found
      */
     public boolean hasKeyword(final String word) {
+        // Check if the word is found between word boundaries
+        if (Utils.isSingleWord(word)) {
+            return descriptionWords.contains(word.toLowerCase());
+        }
+
         // Create a regex pattern to isolate the given word with word boundaries
         Pattern pattern = Pattern.compile(
                 "\\b" + word.toLowerCase() + "\\b",
@@ -96,6 +166,16 @@ public final class Actor implements DatabaseTrackable {
         return matcher.find();
     }
 
+    /**
+     * Calculates the average rating of the videos the actor has cast in, in case
+     * some of them have been rated before the actor has been added to the database.
+     * @param database the database the actor has been added to
+     */
+    @Override
+    public void onAddedToDatabase(final Database database) {
+        updateMeanRating(database);
+    }
+
     /**
      * Gets the primary key for the database, the actor's name.
      * @return the name of the actor
@@ -75,4 +75,9 @@ public final class Constants {
     public static final int MAX_LENGTH = 50;
 
     // add any constants you think you may use
+    public static final String THREADS_PROPERTY = "videosdb.threads";
+    public static final String SNAPSHOT_PROPERTY = "videosdb.snapshot";
+    public static final String COMMAND_LOG_PROPERTY = "videosdb.commandlog";
+    public static final String LEADERBOARDS_PROPERTY = "videosdb.leaderboards";
+    public static final String SNAPSHOT_TESTS_PATH = "test_db/snapshot_files/";
 }
@@ -0,0 +1,329 @@
+package database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the commands that have changed a database, replayed on startup so
+ * their changes survive a crash. Each record holds the length and the CRC32 checksum of its
+ * contents, so a record left incomplete by a crash is detected and dropped.
+ * <p>
+ * Appended records are kept in memory until the log is synced, which writes all of them
+ * at once and forces them to the disk, so a group of commands costs a single fsync.
+ * <p>
+ * Every log has a random ID, changed whenever the log is emptied. A catalog snapshot saves
+ * the ID of the log whose commands it contains, so a log left behind by a crash right after
+ * the snapshot has been written is recognized and emptied instead of being replayed again.
+ */
+public final class CommandLog implements Closeable {
+    /**
+     * The magic number at the start of every log, "VDBL".
+     */
+    private static final int MAGIC = 0x5644424C;
+
+    /**
+     * The version of the log format.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The ID standing for no log, never given to a log.
+     */
+    public static final long NO_ID = 0L;
+
+    /**
+     * The size of the header and of the length and checksum of each record.
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * A logged command.
+     * @param type the ordinal of the command type
+     * @param username the user executing the command
+     * @param title the title of the video
+     * @param grade the grade of a rating
+     * @param seasonNumber the season of a rating
+     */
+    public record Entry(int type, String username, String title,
+                        double grade, int seasonNumber) { }
+
+    private final FileChannel channel;
+
+    /**
+     * The ID of the log, changed whenever the log is emptied.
+     */
+    private long id;
+
+    /**
+     * The records appended since the last sync.
+     */
+    private final ByteArrayOutputStream pendingRecords = new ByteArrayOutputStream();
+
+    private CommandLog(final FileChannel channel, final long id) {
+        this.channel = channel;
+        this.id = id;
+    }
+
+    /**
+     * Opens the log at the given path, creating it if it doesn't exist, and passes each of
+     * its complete records to the given consumer, in order. An incomplete or corrupt record
+     * ends the log, and is removed along with anything after it. If the log is the one
+     * whose commands are already contained by the loaded snapshot, it is emptied instead.
+     * @param path the path to the log file
+     * @param snapshotLogId the ID of the log saved in the loaded snapshot, or NO_ID
+     * @param replayer the consumer of the logged commands
+     * @return the opened log, positioned at its end
+     * @throws IOException in case of exceptions to reading / writing the file, or if the file
+     * isn't a command log of a supported version
+     */
+    public static CommandLog open(final Path path, final long snapshotLogId,
+                                  final Consumer<Entry> replayer) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            // Start a new log if the file is empty
+            if (channel.size() == 0) {
+                CommandLog log = new CommandLog(channel, NO_ID);
+                log.reset();
+                return log;
+            }
+
+            // Read the whole log, so the file can be truncated afterwards
+            ByteBuffer input = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (input.hasRemaining()) {
+                if (channel.read(input, input.position()) < 0) {
+                    break;
+                }
+            }
+            input.flip();
+
+            // Empty the log if its commands are already in the snapshot
+            CommandLog log = new CommandLog(channel, readHeader(input));
+            if (log.id == snapshotLogId) {
+                log.reset();
+                return log;
+            }
+
+            // Drop anything after the last complete record
+            long end = replay(input, replayer);
+            channel.truncate(end);
+            channel.position(end);
+
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads and checks the header of a log.
+     * @param input the contents of the log file
+     * @return the ID of the log
+     * @throws IOException if the file isn't a command log of a supported version
+     */
+    private static long readHeader(final ByteBuffer input) throws IOException {
+        if (input.remaining() < HEADER_SIZE || input.getInt() != MAGIC) {
+            throw new IOException("Not a command log");
+        }
+        int version = input.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported command log version " + version);
+        }
+
+        return input.getLong();
+    }
+
+    /**
+     * Passes the complete records of the log to the given consumer.
+     * @param input the contents of the log file, positioned after the header
+     * @param replayer the consumer of the logged commands
+     * @return the end of the last complete record
+     */
+    private static long replay(final ByteBuffer input, final Consumer<Entry> replayer) {
+        CRC32 checksum = new CRC32();
+        while (input.remaining() >= RECORD_HEADER_SIZE) {
+            int start = input.position();
+            int length = input.getInt();
+            int expectedChecksum = input.getInt();
+
+            // Stop at the first incomplete record
+            if (length < 0 || length > input.remaining()) {
+                return start;
+            }
+
+            // Stop at the first corrupt record
+            ByteBuffer record = input.slice(input.position(), length);
+            checksum.reset();
+            checksum.update(record.duplicate());
+            if ((int) checksum.getValue() != expectedChecksum) {
+                return start;
+            }
+
+            replayer.accept(readEntry(record));
+            input.position(input.position() + length);
+        }
+
+        return input.position();
+    }
+
+    /**
+     * Reads a logged command from the contents of a record.
+     * @param record the contents of the record
+     * @return the logged command
+     */
+    private static Entry readEntry(final ByteBuffer record) {
+        int type = record.get();
+        String username = readString(record);
+        String title = readString(record);
+        double grade = record.getDouble();
+        int seasonNumber = record.getInt();
+
+        return new Entry(type, username, title, grade, seasonNumber);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     * @param record the contents of the record
+     * @return the string
+     */
+    private static String readString(final ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a command to the log. The command is only durable once the log is synced.
+     * @param entry the command to append
+     */
+    public synchronized void append(final Entry entry) {
+        try {
+            // Write the contents of the record
+            ByteArrayOutputStream contentBytes = new ByteArrayOutputStream();
+            DataOutputStream contents = new DataOutputStream(contentBytes);
+            contents.writeByte(entry.type());
+            writeString(contents, entry.username());
+            writeString(contents, entry.title());
+            contents.writeDouble(entry.grade());
+            contents.writeInt(entry.seasonNumber());
+
+            // Write the record, prefixed by its length and checksum
+            byte[] record = contentBytes.toByteArray();
+            CRC32 checksum = new CRC32();
+            checksum.update(record);
+
+            DataOutputStream output = new DataOutputStream(pendingRecords);
+            output.writeInt(record.length);
+            output.writeInt((int) checksum.getValue());
+            output.write(record);
+        } catch (IOException e) {
+            // Writing to memory doesn't fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     * @param output the output to write to
+     * @param string the string to write
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeString(final DataOutputStream output, final String string)
+            throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Writes the commands appended since the last sync to the file and forces them
+     * to the disk, making them durable.
+     * @throws IOException in case of exceptions to writing the file
+     */
+    public synchronized void sync() throws IOException {
+        if (pendingRecords.size() == 0) {
+            return;
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(pendingRecords.toByteArray());
+        while (records.hasRemaining()) {
+            channel.write(records);
+        }
+        channel.force(false);
+
+        pendingRecords.reset();
+    }
+
+    /**
+     * Gets the ID of the log, to be saved in a snapshot containing its commands.
+     * @return the ID of the log
+     */
+    public synchronized long getId() {
+        return id;
+    }
+
+    /**
+     * Removes all the commands from the log, after they have been saved elsewhere
+     * (for example, in a snapshot of the database), and gives the log a new ID. The records
+     * are removed before the new ID is written, so a crash in between leaves the old log
+     * empty rather than the old commands under a new ID.
+     * @throws IOException in case of exceptions to writing the file
+     */
+    public synchronized void reset() throws IOException {
+        pendingRecords.reset();
+        channel.truncate(HEADER_SIZE);
+        channel.force(false);
+
+        // Write the header with a new ID
+        id = newId();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(id).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(false);
+        channel.position(HEADER_SIZE);
+    }
+
+    /**
+     * Generates a random log ID.
+     * @return the new ID, never NO_ID
+     */
+    private static long newId() {
+        SecureRandom random = new SecureRandom();
+        long newId;
+        do {
+            newId = random.nextLong();
+        } while (newId == NO_ID);
+
+        return newId;
+    }
+
+    /**
+     * Syncs the pending commands and closes the log.
+     * @throws IOException in case of exceptions to writing the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+}
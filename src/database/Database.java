@@ -1,96 +1,102 @@
 package database;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
 public final class Database {
     /**
-     * The Singleton instance.
+     * Creates an empty database. Each database is an independent catalog, passed to the
+     * actions and the search managers that work on it.
      */
-    private static Database instance = null;
+    public Database() { }
 
-    private Database() { }
+    /**
+     * The database containing, for each class that extends DatabaseTrackable,
+     * a Repository storing the entities of the respective class.
+     */
+    private final Map<Class<? extends DatabaseTrackable>,
+            Repository<? extends DatabaseTrackable>> database = new ConcurrentHashMap<>();
 
     /**
-     * Gets the instance of the Database Singleton, if it exists, or creates a new one.
-     * @return the Singleton instance
+     * The lock letting any number of read-only actions use the database at the same time,
+     * while the actions that change it use it alone.
      */
-    public static Database getInstance() {
-        if (instance == null) {
-            instance = new Database();
-        }
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
-        return instance;
-    }
+    /**
+     * The aggregated statistics of the videos in the database.
+     */
+    private final VideoStatistics videoStatistics = new VideoStatistics(this);
 
     /**
-     * The database containing, for each class that extends DatabaseTrackable,
-     * a HashMap storing the entities of the respective class.
+     * The cached results of the read-only actions executed on the database.
      */
-    private final HashMap<Class<? extends DatabaseTrackable>,
-            LinkedHashMap<String, DatabaseTrackable>> database = new HashMap<>();
+    private final ResultCache resultCache = new ResultCache();
 
     /**
-     * Retrieves the HashMap of the given class from the database, or returns null
-     * if it doesn't exist. When retrieving the list, the elements will need to be
-     * downcast to the desired type.
+     * The log recording the commands that change the database, or null if they aren't logged.
+     */
+    private CommandLog commandLog;
+
+    /**
+     * Retrieves the Repository of the given class from the database, creating an empty one
+     * if it doesn't exist.
      * @param classKey the class to retrieve from the database
-     * @return the HashMap storing the requested values
+     * @param <T> the type of the entities
+     * @return the Repository storing the requested values
      */
-    public LinkedHashMap<String, DatabaseTrackable> retrieveClassEntities(
-            final Class<? extends DatabaseTrackable> classKey) {
-        return database.get(classKey);
+    @SuppressWarnings("unchecked")
+    public <T extends DatabaseTrackable> Repository<T> retrieveRepository(
+            final Class<T> classKey) {
+        // Every repository is stored under the class of its entities
+        return (Repository<T>) database.computeIfAbsent(classKey, Repository::new);
     }
 
     /**
      * Retrieves the entity of the given class, by the given key, from the database.
-     * Returns null if the database doesn't contain any entries of the given class.
+     * Returns null if the database doesn't contain the requested entity.
      * @param classKey the type of object to retrieve from the database
      * @param key the key to retrieve by
-     * @return the DatabaseTrackable object needed to be downcast
-     */
-    public DatabaseTrackable retrieveEntity(
-            final Class<? extends DatabaseTrackable> classKey, final String key) {
-        // Get the database map of the given class
-        LinkedHashMap<String, DatabaseTrackable> entityMap = retrieveClassEntities(classKey);
-        if (entityMap == null) {
-            return null;
-        }
-
-        // Get the requested entity
-        return entityMap.get(key);
+     * @param <T> the type of the entity
+     * @return the requested entity
+     */
+    public <T extends DatabaseTrackable> T retrieveEntity(
+            final Class<T> classKey, final String key) {
+        return retrieveRepository(classKey).retrieve(key);
     }
 
     /**
      * Adds the given entities to the given class in the database, storing them in
-     * the appropriate HashMap. Useful when you have multiple subclasses of a class
+     * the appropriate Repository. Useful when you have multiple subclasses of a class
      * extending DatabaseTrackable and want to put all of them in a single database entry.
      * @param entities the list of entities to be stored in the database
      * @param classKey the class where to store the entities in the database
      */
     public void add(final List<? extends DatabaseTrackable> entities,
                     final Class<? extends DatabaseTrackable> classKey) {
-        // If the entities list is empty, do nothing
-        if (entities.isEmpty()) {
-            return;
-        }
-
-        // Check the existence of the class' hashmap
-        if (!database.containsKey(classKey)) {
-            database.put(classKey, new LinkedHashMap<>());
-        }
-
-        // Get the database map of the given class
-        LinkedHashMap<String, DatabaseTrackable> entityMap = retrieveClassEntities(classKey);
-
-        // Add the entities to the appropriate hashmap
-        entities.forEach(entity -> entityMap.putIfAbsent(entity.getKey(), entity));
+        // Get the repository of the given class
+        Repository<? extends DatabaseTrackable> repository = retrieveRepository(classKey);
+
+        // Add the entities to the repository, notifying and ranking the newly added ones
+        entities.forEach(entity -> {
+            if (repository.add(entity)) {
+                entity.onAddedToDatabase(this);
+                repository.rank(this, entity);
+            }
+        });
+
+        // The catalog has changed, so the cached results may no longer be valid
+        resultCache.bump(ResultCache.Domain.CATALOG);
     }
 
     /**
      * Adds the given entities to the corresponding runtime class in the database,
-     * storing them in the appropriate HashMap.
+     * storing them in the appropriate Repository.
      * @param entities the list of entities to be stored in the database
      */
     public void add(final List<? extends DatabaseTrackable> entities) {
@@ -104,9 +110,121 @@ public final class Database {
     }
 
     /**
-     * Clears the entire database.
+     * Adds a secondary index to the repository of the class of its entities. The entities
+     * already in the database are indexed immediately, and the ones added later are
+     * indexed when added.
+     * @param index the index to add
+     * @param <T> the type of the indexed entities
+     */
+    public <T extends DatabaseTrackable> void addIndex(final SecondaryIndex<T, ?> index) {
+        retrieveRepository(index.getEntityClass()).addIndex(index);
+    }
+
+    /**
+     * Retrieves the entities having the given key in the given secondary index, in the order
+     * they have been added to the database. Returns an empty list if the index hasn't been
+     * added to the database, or if no entity has the given key.
+     * @param index the index to search in
+     * @param key the key to search for
+     * @param <T> the type of the indexed entities
+     * @param <K> the type of the keys
+     * @return a read-only list of the entities having the given key
+     */
+    public <T extends DatabaseTrackable, K> List<T> retrieveIndexedEntities(
+            final SecondaryIndex<T, K> index, final K key) {
+        return retrieveRepository(index.getEntityClass()).retrieveIndexed(index, key);
+    }
+
+    /**
+     * Adds a leaderboard to the repository of the class of its entities. The entities
+     * already in the database are ranked immediately, and the ones added later are
+     * ranked when added.
+     * @param leaderboard the leaderboard to add
+     * @param <T> the type of the ranked entities
+     */
+    public <T extends DatabaseTrackable> void addLeaderboard(final Leaderboard<T> leaderboard) {
+        retrieveRepository(leaderboard.getEntityClass()).addLeaderboard(leaderboard, this);
+    }
+
+    /**
+     * Moves the given entity in the given leaderboard, after its metric has changed.
+     * Does nothing if the leaderboard hasn't been added to the database.
+     * @param leaderboard the leaderboard to update
+     * @param entity the entity whose metric has changed
+     * @param <T> the type of the ranked entities
+     */
+    public <T extends DatabaseTrackable> void updateLeaderboard(
+            final Leaderboard<T> leaderboard, final T entity) {
+        retrieveRepository(leaderboard.getEntityClass())
+                .updateLeaderboard(leaderboard, this, entity);
+    }
+
+    /**
+     * Checks if the given leaderboard has been added to the database.
+     * @param leaderboard the leaderboard to check
+     * @param <T> the type of the ranked entities
+     * @return true if the leaderboard has been added
+     */
+    public <T extends DatabaseTrackable> boolean hasLeaderboard(
+            final Leaderboard<T> leaderboard) {
+        return retrieveRepository(leaderboard.getEntityClass()).hasLeaderboard(leaderboard);
+    }
+
+    /**
+     * Retrieves the first entities of the given leaderboard that match the given condition,
+     * in the order of their metrics, then of their primary keys.
+     * @param leaderboard the leaderboard to search in
+     * @param count the number of entities to get
+     * @param ascending true to start from the lowest metric, false to start from the highest
+     * @param condition the condition of the entities to get
+     * @param <T> the type of the ranked entities
+     * @return a read-only list of the entities, or an empty list if the leaderboard
+     * hasn't been added to the database
+     */
+    public <T extends DatabaseTrackable> List<T> retrieveRanked(
+            final Leaderboard<T> leaderboard, final int count, final boolean ascending,
+            final Predicate<? super T> condition) {
+        return retrieveRepository(leaderboard.getEntityClass())
+                .retrieveRanked(leaderboard, count, ascending, condition);
+    }
+
+    /**
+     * Gets the aggregated statistics of the videos in the database.
+     * @return the video statistics
      */
-    public void clear() {
-        database.clear();
+    public VideoStatistics getVideoStatistics() {
+        return videoStatistics;
+    }
+
+    /**
+     * Gets the cached results of the read-only actions executed on the database.
+     * @return the result cache
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Gets the lock to hold while executing actions that only read the database.
+     * @return the shared read lock
+     */
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * Gets the lock to hold while executing actions that change the database.
+     * @return the exclusive write lock
+     */
+    public Lock writeLock() {
+        return lock.writeLock();
+    }
+
+    public CommandLog getCommandLog() {
+        return commandLog;
+    }
+
+    public void setCommandLog(final CommandLog commandLog) {
+        this.commandLog = commandLog;
     }
 }
@@ -6,4 +6,11 @@ public interface DatabaseTrackable {
      * @return a string representing the primary key
      */
     String getKey();
+
+    /**
+     * Called by the database after the entity has been stored. Useful for entities
+     * that need to register information in the database's aggregated structures.
+     * @param database the database the entity has been added to
+     */
+    default void onAddedToDatabase(final Database database) { }
 }
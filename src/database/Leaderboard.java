@@ -0,0 +1,78 @@
+package database;
+
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * Describes a leaderboard of the database, which keeps the entities of a class ordered by a
+ * numeric metric, then by their primary key, leaving out the entities whose metric is 0. A
+ * stable leaderboard keeps all the entities instead, the ones with equal metrics in the
+ * order they have been added to the database. The leaderboard itself is stored by the
+ * repository of the class, after being added with Database.addLeaderboard(), and an entity
+ * is moved whenever Database.updateLeaderboard() is called after its metric changes.
+ * @param <T> the type of the ranked entities
+ */
+public final class Leaderboard<T extends DatabaseTrackable> {
+    private final Class<T> entityClass;
+    private final ToDoubleBiFunction<Database, ? super T> metric;
+    private final boolean stable;
+
+    private Leaderboard(final Class<T> entityClass,
+                        final ToDoubleBiFunction<Database, ? super T> metric,
+                        final boolean stable) {
+        this.entityClass = entityClass;
+        this.metric = metric;
+        this.stable = stable;
+    }
+
+    /**
+     * Creates a leaderboard ranking the entities with a metric other than 0 by the given
+     * metric, then by their primary key.
+     * @param entityClass the database class of the ranked entities
+     * @param metric the function computing the metric of an entity in a database
+     */
+    public Leaderboard(final Class<T> entityClass,
+                       final ToDoubleBiFunction<Database, ? super T> metric) {
+        this(entityClass, metric, false);
+    }
+
+    /**
+     * Creates a leaderboard ranking all the entities by the given metric, then in the order
+     * they have been added to the database. Walked in ascending order, it gives the same order
+     * as a stable sort of the database's entities by the metric.
+     * @param entityClass the database class of the ranked entities
+     * @param metric the function computing the metric of an entity in a database
+     * @param <T> the type of the ranked entities
+     * @return the new leaderboard
+     */
+    public static <T extends DatabaseTrackable> Leaderboard<T> stable(
+            final Class<T> entityClass, final ToDoubleBiFunction<Database, ? super T> metric) {
+        return new Leaderboard<>(entityClass, metric, true);
+    }
+
+    /**
+     * Checks if the leaderboard is stable.
+     * @return true if the leaderboard keeps all the entities, in the order they have
+     * been added when their metrics are equal
+     */
+    boolean isStable() {
+        return stable;
+    }
+
+    /**
+     * Gets the database class of the ranked entities.
+     * @return the class of the ranked entities
+     */
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Computes the metric of the given entity.
+     * @param database the database of the entity
+     * @param entity the entity to compute the metric of
+     * @return the metric of the entity
+     */
+    double computeMetric(final Database database, final T entity) {
+        return metric.applyAsDouble(database, entity);
+    }
+}
@@ -0,0 +1,116 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The entries of a leaderboard in a repository, ordered by metric, then by primary key or,
+ * for stable leaderboards, by the order the entities have been first ranked in, which is
+ * the order they have been added to the database. Entities can be moved by many threads at
+ * the same time, each entity being moved by a single thread at a time.
+ * @param <T> the type of the ranked entities
+ */
+final class Ranking<T extends DatabaseTrackable> {
+    /**
+     * The position of an entity in the ranking. The metric is stored along with the entity,
+     * as the entity is only moved after its metric changes.
+     * @param metric the metric of the entity when it has been ranked
+     * @param key the primary key of the entity
+     * @param sequence the number of entities ranked before the entity was first ranked
+     * @param entity the ranked entity
+     * @param <T> the type of the ranked entity
+     */
+    private record Entry<T>(double metric, String key, long sequence, T entity) { }
+
+    /**
+     * Whether the entities with a metric of 0 are kept and ties are broken by sequence.
+     */
+    private final boolean stable;
+
+    private final NavigableSet<Entry<T>> entries;
+
+    /**
+     * The sequence of the next entity ranked for the first time.
+     */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * The current entry of each ranked entity, by primary key.
+     */
+    private final Map<String, Entry<T>> entriesByKey = new ConcurrentHashMap<>();
+
+    Ranking(final boolean stable) {
+        this.stable = stable;
+
+        Comparator<Entry<T>> byMetric = Comparator.comparingDouble(Entry::metric);
+        entries = new ConcurrentSkipListSet<>(stable
+                ? byMetric.thenComparingLong(Entry::sequence)
+                : byMetric.thenComparing(Entry::key));
+    }
+
+    /**
+     * Moves the given entity to the position of its current metric, removing it if the
+     * metric is 0 and the ranking isn't stable. The metric is computed while no other
+     * thread moves the entity, so the entity ends up ranked by its latest metric.
+     * @param entity the entity to move
+     * @param metric the function computing the metric of the entity
+     */
+    void update(final T entity, final ToDoubleFunction<T> metric) {
+        entriesByKey.compute(entity.getKey(), (key, oldEntry) -> {
+            if (oldEntry != null) {
+                entries.remove(oldEntry);
+            }
+
+            // Leave out the entities with no metric, unless keeping all of them
+            double value = metric.applyAsDouble(entity);
+            if (value == 0.0d && !stable) {
+                return null;
+            }
+
+            // Keep the sequence of the entity once it has been ranked
+            long sequence = oldEntry != null
+                    ? oldEntry.sequence()
+                    : nextSequence.getAndIncrement();
+
+            Entry<T> entry = new Entry<>(value, key, sequence, entity);
+            entries.add(entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Gets the first entities of the ranking that match the given condition.
+     * @param count the number of entities to get
+     * @param ascending true to start from the lowest metric, false to start from the highest
+     * @param condition the condition of the entities to get
+     * @return a read-only list of the entities, in ranking order
+     */
+    List<T> first(final int count, final boolean ascending,
+                  final Predicate<? super T> condition) {
+        ArrayList<T> firstEntities = new ArrayList<>();
+        if (count <= 0) {
+            return Collections.unmodifiableList(firstEntities);
+        }
+
+        for (Entry<T> entry : ascending ? entries : entries.descendingSet()) {
+            if (condition.test(entry.entity())) {
+                firstEntities.add(entry.entity());
+
+                if (firstEntities.size() == count) {
+                    break;
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(firstEntities);
+    }
+}
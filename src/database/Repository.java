@@ -0,0 +1,314 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Holds the entities of a single class of the database, in the order they have been added,
+ * along with the secondary indexes and the leaderboards of the class. Entities are also split
+ * into partitions by their runtime class (for example, the Movies and Shows of the Video
+ * repository).
+ * @param <T> the type of the entities
+ */
+public final class Repository<T extends DatabaseTrackable> {
+    private final Class<T> entityClass;
+
+    /**
+     * The entities of the repository, by their primary key.
+     */
+    private final HashMap<String, T> entities = new HashMap<>();
+
+    /**
+     * The entities of the repository, in the order they have been added,
+     * along with a read-only view of them.
+     */
+    private final ArrayList<T> entityList = new ArrayList<>();
+    private final List<T> entityView = Collections.unmodifiableList(entityList);
+
+    /**
+     * The entities of the repository and read-only views of them, by runtime class.
+     * The partitions may be created by readers, so they can be created concurrently.
+     */
+    private final Map<Class<?>, ArrayList<T>> partitions = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<T>> partitionViews = new ConcurrentHashMap<>();
+
+    /**
+     * The dense IDs assigned to the primary keys, in the order the keys have been seen.
+     */
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final ArrayList<String> keysById = new ArrayList<>();
+    private final List<String> keysByIdView = Collections.unmodifiableList(keysById);
+
+    /**
+     * The positions of the entities in the order they have been added, by dense ID
+     * (-1 for the keys whose entity hasn't been added yet).
+     */
+    private int[] positionsById = new int[0];
+
+    /**
+     * The entries of each secondary index, mapping each key to the entities having it,
+     * in the order they have been added.
+     */
+    private final HashMap<SecondaryIndex<T, ?>, HashMap<Object, ArrayList<T>>> indexEntries =
+            new HashMap<>();
+
+    /**
+     * The entries of each leaderboard, ordering the entities by the leaderboard's metric.
+     */
+    private final HashMap<Leaderboard<T>, Ranking<T>> rankings = new HashMap<>();
+
+    public Repository(final Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Adds the given entity to the repository, its partition and its indexes,
+     * if there is no entity with the same primary key already.
+     * @param entity the entity to add
+     * @return true if the entity has been added
+     */
+    boolean add(final DatabaseTrackable entity) {
+        T typedEntity = entityClass.cast(entity);
+
+        // Check for an entity with the same primary key
+        if (entities.putIfAbsent(typedEntity.getKey(), typedEntity) != null) {
+            return false;
+        }
+
+        // Add the entity to the list and its partition, remembering its position by ID
+        int id = retrieveId(typedEntity.getKey());
+        positionsById[id] = entityList.size();
+        entityList.add(typedEntity);
+        getPartitionList(typedEntity.getClass()).add(typedEntity);
+
+        // Add the entity to the indexes
+        indexEntries.forEach((index, entries) -> addToIndex(entries, index, typedEntity));
+
+        return true;
+    }
+
+    /**
+     * Gets the list of entities of the given runtime class, creating it if needed.
+     * @param runtimeClass the runtime class of the entities
+     * @return the list of entities
+     */
+    private ArrayList<T> getPartitionList(final Class<?> runtimeClass) {
+        return partitions.computeIfAbsent(runtimeClass, k -> {
+            ArrayList<T> partition = new ArrayList<>();
+            partitionViews.put(runtimeClass, Collections.unmodifiableList(partition));
+            return partition;
+        });
+    }
+
+    /**
+     * Adds the given entity to the entries of the given index.
+     * @param entries the entries of the index
+     * @param index the index to add the entity to
+     * @param entity the entity to add
+     */
+    private void addToIndex(final HashMap<Object, ArrayList<T>> entries,
+                            final SecondaryIndex<T, ?> index, final T entity) {
+        index.extractKeys(entity).forEach(key ->
+                entries.computeIfAbsent(key, k -> new ArrayList<>()).add(entity));
+    }
+
+    /**
+     * Adds a secondary index to the repository and indexes the entities already in it.
+     * @param index the index to add
+     */
+    void addIndex(final SecondaryIndex<T, ?> index) {
+        // Check if the index has already been added
+        if (indexEntries.containsKey(index)) {
+            return;
+        }
+
+        HashMap<Object, ArrayList<T>> entries = new HashMap<>();
+        entityList.forEach(entity -> addToIndex(entries, index, entity));
+        indexEntries.put(index, entries);
+    }
+
+    /**
+     * Adds a leaderboard to the repository and ranks the entities already in it.
+     * @param leaderboard the leaderboard to add
+     * @param database the database of the repository
+     */
+    void addLeaderboard(final Leaderboard<T> leaderboard, final Database database) {
+        // Check if the leaderboard has already been added
+        if (rankings.containsKey(leaderboard)) {
+            return;
+        }
+
+        Ranking<T> ranking = new Ranking<>(leaderboard.isStable());
+        entityList.forEach(entity -> ranking.update(entity,
+                rankedEntity -> leaderboard.computeMetric(database, rankedEntity)));
+        rankings.put(leaderboard, ranking);
+    }
+
+    /**
+     * Moves the given entity to the position of its current metric in the given leaderboard.
+     * Does nothing if the leaderboard hasn't been added.
+     * @param leaderboard the leaderboard to update
+     * @param database the database of the repository
+     * @param entity the entity whose metric has changed
+     */
+    void updateLeaderboard(final Leaderboard<T> leaderboard, final Database database,
+                           final T entity) {
+        Ranking<T> ranking = rankings.get(leaderboard);
+        if (ranking != null) {
+            ranking.update(entity,
+                    rankedEntity -> leaderboard.computeMetric(database, rankedEntity));
+        }
+    }
+
+    /**
+     * Ranks a newly added entity in all the leaderboards of the repository.
+     * @param database the database of the repository
+     * @param entity the added entity
+     */
+    void rank(final Database database, final DatabaseTrackable entity) {
+        T typedEntity = entityClass.cast(entity);
+        rankings.keySet().forEach(leaderboard ->
+                updateLeaderboard(leaderboard, database, typedEntity));
+    }
+
+    /**
+     * Checks if the given leaderboard has been added to the repository.
+     * @param leaderboard the leaderboard to check
+     * @return true if the leaderboard has been added
+     */
+    public boolean hasLeaderboard(final Leaderboard<T> leaderboard) {
+        return rankings.containsKey(leaderboard);
+    }
+
+    /**
+     * Retrieves the first entities of the given leaderboard that match the given condition.
+     * @param leaderboard the leaderboard to search in
+     * @param count the number of entities to get
+     * @param ascending true to start from the lowest metric, false to start from the highest
+     * @param condition the condition of the entities to get
+     * @return a read-only list of the entities, in leaderboard order, or an empty list
+     * if the leaderboard hasn't been added
+     */
+    public List<T> retrieveRanked(final Leaderboard<T> leaderboard, final int count,
+                                  final boolean ascending,
+                                  final Predicate<? super T> condition) {
+        Ranking<T> ranking = rankings.get(leaderboard);
+        if (ranking == null) {
+            return List.of();
+        }
+
+        return ranking.first(count, ascending, condition);
+    }
+
+    /**
+     * Retrieves the dense ID of the given primary key, assigning the next free ID if the
+     * key hasn't been seen before. Keys can be given an ID before their entity is added,
+     * so other entities can refer to it by ID.
+     * @param key the primary key
+     * @return the ID of the key, between 0 and the number of seen keys
+     */
+    public int retrieveId(final String key) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+            keysById.add(key);
+
+            // Grow the positions array, if needed, marking the new IDs as not added
+            if (id >= positionsById.length) {
+                int length = positionsById.length;
+                positionsById = Arrays.copyOf(positionsById, Math.max(id + 1, length * 2));
+                Arrays.fill(positionsById, length, positionsById.length, -1);
+            }
+        }
+
+        return id;
+    }
+
+    /**
+     * Retrieves the primary key that has been given the given dense ID.
+     * @param id the dense ID
+     * @return the primary key
+     */
+    public String retrieveKey(final int id) {
+        return keysById.get(id);
+    }
+
+    /**
+     * Retrieves the position of the entity with the given dense ID
+     * in the order the entities have been added.
+     * @param id the dense ID
+     * @return the position of the entity, or -1 if it hasn't been added yet
+     */
+    public int retrievePosition(final int id) {
+        return positionsById[id];
+    }
+
+    /**
+     * Retrieves all the primary keys that have been given dense IDs. The returned view
+     * reflects the keys seen later.
+     * @return a read-only list of the keys, in the order of their IDs
+     */
+    public List<String> retrieveIdKeys() {
+        return keysByIdView;
+    }
+
+    /**
+     * Retrieves an entity by its primary key.
+     * @param key the primary key
+     * @return the entity, or null if it doesn't exist
+     */
+    public T retrieve(final String key) {
+        return entities.get(key);
+    }
+
+    /**
+     * Retrieves all the entities of the repository. The returned view
+     * reflects the entities added later.
+     * @return a read-only list of the entities, in the order they have been added
+     */
+    public List<T> retrieveAll() {
+        return entityView;
+    }
+
+    /**
+     * Retrieves all the entities of the given runtime class. The returned view
+     * reflects the entities added later.
+     * @param runtimeClass the exact class of the entities
+     * @return a read-only list of the entities, in the order they have been added
+     */
+    public List<T> retrievePartition(final Class<? extends T> runtimeClass) {
+        getPartitionList(runtimeClass);
+        return partitionViews.get(runtimeClass);
+    }
+
+    /**
+     * Retrieves the entities having the given key in the given secondary index.
+     * @param index the index to search in
+     * @param key the key to search for
+     * @return a read-only list of the entities, or an empty list if the index
+     * hasn't been added or if no entity has the given key
+     */
+    public List<T> retrieveIndexed(final SecondaryIndex<T, ?> index, final Object key) {
+        HashMap<Object, ArrayList<T>> entries = indexEntries.get(index);
+        if (entries == null || !entries.containsKey(key)) {
+            return List.of();
+        }
+
+        return Collections.unmodifiableList(entries.get(key));
+    }
+
+    /**
+     * Gets the number of entities in the repository.
+     * @return the number of entities
+     */
+    public int size() {
+        return entityList.size();
+    }
+}
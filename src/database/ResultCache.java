@@ -0,0 +1,108 @@
+package database;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of read-only actions, along with the epochs of the data they have
+ * been computed from. Every change to the data of a domain bumps the domain's epoch, so
+ * a result is only reused while the domains it depends on are unchanged.
+ */
+public final class ResultCache {
+    /**
+     * The maximum number of cached results. The cache is emptied when it grows past it.
+     */
+    private static final int MAX_ENTRIES = 4096;
+
+    /**
+     * The parts of the database that change independently.
+     */
+    public enum Domain {
+        CATALOG,
+        RATINGS,
+        VIEWS,
+        FAVOURITES
+    }
+
+    /**
+     * A cached result.
+     * @param epochs the epochs of the domains the result depends on, when it was computed
+     * @param result the result
+     */
+    private record Entry(long[] epochs, String result) { }
+
+    /**
+     * The current epoch of each domain.
+     */
+    private final EnumMap<Domain, AtomicLong> epochs = new EnumMap<>(Domain.class);
+
+    /**
+     * The cached results, by the normalized key of the action that produced them.
+     */
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    public ResultCache() {
+        // Create the epochs of all the domains up front, so they are never added concurrently
+        for (Domain domain : Domain.values()) {
+            epochs.put(domain, new AtomicLong());
+        }
+    }
+
+    /**
+     * Records a change to the data of the given domain, invalidating the results
+     * depending on it.
+     * @param domain the changed domain
+     */
+    public void bump(final Domain domain) {
+        epochs.get(domain).incrementAndGet();
+    }
+
+    /**
+     * Gets the current epochs of the given domains.
+     * @param domains the domains
+     * @return the epochs, in the iteration order of the domains
+     */
+    private long[] currentEpochs(final Set<Domain> domains) {
+        long[] currentEpochs = new long[domains.size()];
+        int i = 0;
+        for (Domain domain : domains) {
+            currentEpochs[i++] = epochs.get(domain).get();
+        }
+
+        return currentEpochs;
+    }
+
+    /**
+     * Gets the cached result of the given key, if the given domains haven't changed since
+     * it has been computed. Otherwise, computes the result and caches it. The epochs are read
+     * before computing, so a result computed during a change is never reused.
+     * @param key the normalized key of the action, with equals() and hashCode()
+     * @param domains the domains the result depends on, always given in the same order
+     * @param computation computes the result
+     * @return the result
+     */
+    public String retrieve(final Object key, final Set<Domain> domains,
+                           final Supplier<String> computation) {
+        long[] currentEpochs = currentEpochs(domains);
+
+        // Reuse the cached result if its domains haven't changed
+        Entry entry = entries.get(key);
+        if (entry != null && Arrays.equals(entry.epochs(), currentEpochs)) {
+            return entry.result();
+        }
+
+        // Keep the cache from growing indefinitely
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+
+        String result = computation.get();
+        entries.put(key, new Entry(currentEpochs, result));
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package database;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Describes a secondary index of the database, which maps the keys extracted from the
+ * entities of a class to the entities having those keys. The index itself is stored and
+ * kept up to date by the repository of the class, after being added with Database.addIndex().
+ * @param <T> the type of the indexed entities
+ * @param <K> the type of the keys
+ */
+public final class SecondaryIndex<T extends DatabaseTrackable, K> {
+    private final Class<T> entityClass;
+    private final Function<? super T, ? extends Collection<? extends K>> keyExtractor;
+
+    /**
+     * Creates an index in which every entity can have multiple keys.
+     * @param entityClass the database class of the indexed entities
+     * @param keyExtractor the function extracting the keys of an entity
+     */
+    public SecondaryIndex(final Class<T> entityClass,
+                          final Function<? super T, ? extends Collection<? extends K>>
+                                  keyExtractor) {
+        this.entityClass = entityClass;
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Creates an index in which every entity has a single key.
+     * @param entityClass the database class of the indexed entities
+     * @param keyExtractor the function extracting the key of an entity
+     * @param <T> the type of the indexed entities
+     * @param <K> the type of the keys
+     * @return the new index
+     */
+    public static <T extends DatabaseTrackable, K> SecondaryIndex<T, K> singleKey(
+            final Class<T> entityClass, final Function<? super T, ? extends K> keyExtractor) {
+        return new SecondaryIndex<>(entityClass, entity -> List.of(keyExtractor.apply(entity)));
+    }
+
+    /**
+     * Gets the database class of the indexed entities.
+     * @return the class of the indexed entities
+     */
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Extracts the keys of the given entity.
+     * @param entity the entity to extract the keys from
+     * @return the keys of the entity
+     */
+    Collection<? extends K> extractKeys(final T entity) {
+        return keyExtractor.apply(entity);
+    }
+}
@@ -0,0 +1,141 @@
+package database;
+
+import entertainment.Genre;
+import entertainment.Video;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The favourite and view counters of the videos of a database. The counters can be
+ * updated by many threads at the same time, as they are only ever added to.
+ */
+public final class VideoStatistics {
+    /**
+     * The database holding the videos the statistics refer to.
+     */
+    private final Database database;
+    /**
+     * The number of users that have added each video to favourites, by the video's title.
+     */
+    private final Map<String, LongAdder> favouriteCounts = new ConcurrentHashMap<>();
+
+    /**
+     * The total number of views of each video, by the video's title.
+     */
+    private final Map<String, LongAdder> viewCounts = new ConcurrentHashMap<>();
+
+    /**
+     * The total number of views of the videos in the database, by genre.
+     */
+    private final EnumMap<Genre, LongAdder> genreViews = new EnumMap<>(Genre.class);
+
+    public VideoStatistics(final Database database) {
+        this.database = database;
+
+        // Create the counters of all the genres up front, so they are never added concurrently
+        for (Genre genre : Genre.values()) {
+            genreViews.put(genre, new LongAdder());
+        }
+    }
+
+    /**
+     * Gets the counter of the given video from the given counters, creating it if needed.
+     * @param counters the counters, by video title
+     * @param videoTitle the title of the video
+     * @return the counter of the video
+     */
+    private static LongAdder getCounter(final Map<String, LongAdder> counters,
+                                        final String videoTitle) {
+        return counters.computeIfAbsent(videoTitle, title -> new LongAdder());
+    }
+
+    /**
+     * Gets the value of the counter of the given video from the given counters.
+     * @param counters the counters, by video title
+     * @param videoTitle the title of the video
+     * @return the value of the counter, or 0 if the video has no counter
+     */
+    private static int getCount(final Map<String, LongAdder> counters,
+                                final String videoTitle) {
+        LongAdder counter = counters.get(videoTitle);
+        return counter == null ? 0 : counter.intValue();
+    }
+
+    /**
+     * Records a new user adding the given video to favourites.
+     * @param videoTitle the title of the video
+     */
+    public void addFavourite(final String videoTitle) {
+        getCounter(favouriteCounts, videoTitle).increment();
+    }
+
+    /**
+     * Gets the number of users that have added the given video to favourites.
+     * @param videoTitle the title of the video
+     * @return the favourite count, or 0 if nobody has added the video to favourites
+     */
+    public int getFavouriteCount(final String videoTitle) {
+        return getCount(favouriteCounts, videoTitle);
+    }
+
+    /**
+     * Adds the given number of views to the given video.
+     * @param videoTitle the title of the video
+     * @param views the number of views to add
+     */
+    public void addViews(final String videoTitle, final int views) {
+        getCounter(viewCounts, videoTitle).add(views);
+
+        // If the video is already in the database, update its genres as well
+        Video video = database.retrieveEntity(Video.class, videoTitle);
+        if (video != null) {
+            addGenreViews(video, views);
+        }
+    }
+
+    /**
+     * Adds the views a video has gathered before being added to the database to its genres.
+     * @param video the video added to the database
+     */
+    public void addVideo(final Video video) {
+        addGenreViews(video, getViews(video.getTitle()));
+    }
+
+    /**
+     * Adds the given number of views to each genre of the given video. Unknown genres,
+     * parsed as null, are skipped.
+     * @param video the viewed video
+     * @param views the number of views to add
+     */
+    private void addGenreViews(final Video video, final int views) {
+        if (views == 0) {
+            return;
+        }
+
+        video.getGenres().stream()
+                .filter(Objects::nonNull)
+                .forEach(genre -> genreViews.get(genre).add(views));
+    }
+
+    /**
+     * Gets the total number of views of the given video, across all users.
+     * @param videoTitle the title of the video
+     * @return the view count, or 0 if nobody has watched the video
+     */
+    public int getViews(final String videoTitle) {
+        return getCount(viewCounts, videoTitle);
+    }
+
+    /**
+     * Gets the total number of views of the videos of the given genre.
+     * @param genre the genre of the videos
+     * @return the view count, or 0 if no video of the given genre has been watched
+     */
+    public int getGenreViews(final Genre genre) {
+        return genreViews.get(genre).intValue();
+    }
+}
@@ -3,15 +3,25 @@ package entertainment;
 import user.User;
 import common.ActionExceptions;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public final class Movie extends Video {
     private final int duration;
-    private final List<Double> ratings;
     private final HashSet<String> ratedUsers;
 
+    /**
+     * The sum and the number of all the ratings given to the movie. The sum is compensated
+     * for rounding errors (Kahan summation, as DoubleStream.average() does), so the average
+     * doesn't depend on the order of the ratings.
+     */
+    private double ratingSum;
+    private double ratingCompensation;
+    private int ratingCount;
+
     public Movie(final String title, final int launchYear,
                  final int duration, final List<Genre> genres) {
         // Set the common video values
@@ -20,8 +30,7 @@ public final class Movie extends Video {
         // Set the movie specific value
         this.duration = duration;
 
-        // Initialize the collections
-        ratings = new ArrayList<>();
+        // Initialize the rated users hashset
         ratedUsers = new HashSet<>();
     }
 
@@ -35,7 +44,7 @@ public final class Movie extends Video {
      * @throws ActionExceptions.AlreadyRatedException if the video has already been rated
      */
     @Override
-    public void addRating(final double rating, final int index, final User user)
+    public synchronized void addRating(final double rating, final int index, final User user)
             throws ActionExceptions.EntryNotFoundException,
             ActionExceptions.NotWatchedException,
             ActionExceptions.AlreadyRatedException {
@@ -45,7 +54,7 @@ public final class Movie extends Video {
         }
 
         // Check if the movie has been watched by the user
-        if (user.hasNotWatched(getTitle())) {
+        if (user.hasNotWatched(this)) {
             throw new ActionExceptions.NotWatchedException();
         }
 
@@ -54,23 +63,58 @@ public final class Movie extends Video {
             throw new ActionExceptions.AlreadyRatedException();
         }
 
-        // Otherwise, rate the movie and add the user to the hashset
-        ratings.add(rating);
+        // Otherwise, rate the movie, carrying the rounding error of the sum over
+        // to the next rating, and add the user to the hashset
+        double compensatedRating = rating - ratingCompensation;
+        double sum = ratingSum + compensatedRating;
+        ratingCompensation = (sum - ratingSum) - compensatedRating;
+        ratingSum = sum;
+        ++ratingCount;
         ratedUsers.add(user.getUsername());
     }
 
     /**
-     * Calculates the total rating of the movie by getting the average of
-     * all the numbers in the ratings collection.
+     * Gets the usernames of the users that have rated the movie.
+     * @return a read-only view of the usernames
+     */
+    public Set<String> getRatedUsers() {
+        return Collections.unmodifiableSet(ratedUsers);
+    }
+
+    public double getRatingSum() {
+        return ratingSum;
+    }
+
+    public double getRatingCompensation() {
+        return ratingCompensation;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Restores the ratings of the movie, as saved in a snapshot.
+     * @param sum the sum of the ratings
+     * @param compensation the rounding error of the sum
+     * @param count the number of ratings
+     * @param users the usernames of the users that have rated the movie
+     */
+    public void restoreRatings(final double sum, final double compensation, final int count,
+                               final Collection<String> users) {
+        ratingSum = sum;
+        ratingCompensation = compensation;
+        ratingCount = count;
+        ratedUsers.addAll(users);
+    }
+
+    /**
+     * Calculates the total rating of the movie, the average of all its ratings.
      * @return the average rating, or 0 if unrated
      */
     @Override
-    public double getTotalRating() {
-        // Return the mean of all the ratings
-        return ratings.stream()
-                .mapToDouble(number -> number)
-                .average()
-                .orElse(0.0d);
+    public synchronized double getTotalRating() {
+        return ratingCount == 0 ? 0.0d : (ratingSum - ratingCompensation) / ratingCount;
     }
 
     /**
@@ -1,6 +1,5 @@
 package entertainment;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,14 +17,25 @@ public final class Season {
      */
     private int duration;
     /**
-     * List of ratings for each season
+     * List of ratings for each season, only kept if set explicitly
      */
     private List<Double> ratings;
+    /**
+     * Sum of all the ratings of the season
+     */
+    private double ratingSum;
+    /**
+     * Number of ratings of the season
+     */
+    private int ratingCount;
 
     public Season(final int currentSeason, final int duration) {
         this.currentSeason = currentSeason;
         this.duration = duration;
-        this.ratings = new ArrayList<>();
+    }
+
+    public int getCurrentSeason() {
+        return currentSeason;
     }
 
     public int getDuration() {
@@ -36,12 +46,66 @@ public final class Season {
         this.duration = duration;
     }
 
+    /**
+     * Gets the individual ratings of the season, if they are being kept.
+     * @return the list of ratings, or an empty list if they are not kept
+     */
     public List<Double> getRatings() {
-        return ratings;
+        return ratings == null ? List.of() : ratings;
     }
 
+    /**
+     * Sets the individual ratings of the season, and keeps adding the new ratings to
+     * the given list from now on.
+     * @param ratings the list of ratings
+     */
     public void setRatings(final List<Double> ratings) {
         this.ratings = ratings;
+
+        ratingSum = 0.0d;
+        for (double rating : ratings) {
+            ratingSum += rating;
+        }
+        ratingCount = ratings.size();
+    }
+
+    /**
+     * Adds a rating to the season.
+     * @param rating the rating to add
+     */
+    public void addRating(final double rating) {
+        ratingSum += rating;
+        ++ratingCount;
+
+        if (ratings != null) {
+            ratings.add(rating);
+        }
+    }
+
+    public double getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Restores the sum and the number of ratings of the season, as saved in a snapshot.
+     * @param sum the sum of the ratings
+     * @param count the number of ratings
+     */
+    public void restoreRatings(final double sum, final int count) {
+        ratingSum = sum;
+        ratingCount = count;
+    }
+
+    /**
+     * Gets the average of the season's ratings.
+     * @return the average rating, or 0 if unrated
+     */
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0d : ratingSum / ratingCount;
     }
 
     @Override
@@ -54,4 +118,3 @@ public final class Season {
                 + '}';
     }
 }
-
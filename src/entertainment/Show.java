@@ -4,14 +4,22 @@ import user.User;
 import common.ActionExceptions;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public final class Show extends Video {
     private final ArrayList<Season> seasons;
     private final HashMap<Integer, HashSet<String>> ratedUsers;
 
+    /**
+     * The average of all the seasons' ratings, updated whenever a season is rated.
+     */
+    private double totalRating;
+
     public Show(final String title, final int launchYear,
                 final List<Genre> genres, final List<Season> seasons) {
         // Set the common video values
@@ -38,7 +46,7 @@ public final class Show extends Video {
      * @throws ActionExceptions.AlreadyRatedException if the video has already been rated
      */
     @Override
-    public void addRating(final double rating, final int index, final User user)
+    public synchronized void addRating(final double rating, final int index, final User user)
             throws ActionExceptions.EntryNotFoundException,
             ActionExceptions.NotWatchedException,
             ActionExceptions.AlreadyRatedException {
@@ -48,7 +56,7 @@ public final class Show extends Video {
         }
 
         // Check if the show has been watched by the user
-        if (user.hasNotWatched(getTitle())) {
+        if (user.hasNotWatched(this)) {
             throw new ActionExceptions.NotWatchedException();
         }
 
@@ -57,42 +65,64 @@ public final class Show extends Video {
             throw new ActionExceptions.AlreadyRatedException();
         }
 
-        // Otherwise, get the ratings list of the current season and add the new one
-        List<Double> ratings = seasons.get(index - 1).getRatings();
-        ratings.add(rating);
+        // Otherwise, add the rating to the current season
+        seasons.get(index - 1).addRating(rating);
 
         // Add the user to the rated users set
         ratedUsers.get(index).add(user.getUsername());
+
+        // Update the mean of all the ratings of all the seasons
+        updateTotalRating();
     }
 
     /**
-     * Calculates the average rating of the given season.
-     * @param season the season to get the average rating for
-     * @return the average rating
+     * Updates the total rating to the mean of all the ratings of all the seasons.
      */
-    private double getAverageSeasonRating(final Season season) {
-        // If the season has no ratings, consider the rating 0
-        if (season.getRatings().isEmpty()) {
-            return 0.0d;
-        }
+    private void updateTotalRating() {
+        totalRating = seasons.stream()
+                .mapToDouble(Season::getAverageRating)
+                .average()
+                .orElse(0.0d);
+    }
 
-        // Otherwise, get the mean of the ratings
-        return season.getRatings().stream()
-                .reduce(0.0d, Double::sum) / season.getRatings().size();
+    /**
+     * Gets the seasons of the show.
+     * @return a read-only view of the seasons
+     */
+    public List<Season> getSeasons() {
+        return Collections.unmodifiableList(seasons);
     }
 
     /**
-     * Calculates the total rating of the show by getting the average of
-     * all the seasons' ratings.
+     * Gets the usernames of the users that have rated the given season.
+     * @param index the index of the season
+     * @return a read-only view of the usernames
+     */
+    public Set<String> getRatedUsers(final int index) {
+        return Collections.unmodifiableSet(ratedUsers.get(index));
+    }
+
+    /**
+     * Restores the ratings of the given season, as saved in a snapshot.
+     * @param index the index of the season
+     * @param sum the sum of the ratings
+     * @param count the number of ratings
+     * @param users the usernames of the users that have rated the season
+     */
+    public void restoreRatings(final int index, final double sum, final int count,
+                               final Collection<String> users) {
+        seasons.get(index - 1).restoreRatings(sum, count);
+        ratedUsers.get(index).addAll(users);
+        updateTotalRating();
+    }
+
+    /**
+     * Gets the total rating of the show, the average of all the seasons' ratings.
      * @return the average rating, or 0 if unrated
      */
     @Override
-    public double getTotalRating() {
-        // Return the mean of all the ratings of all the seasons
-        return seasons.stream()
-                .mapToDouble(this::getAverageSeasonRating)
-                .average()
-                .orElse(0.0d);
+    public synchronized double getTotalRating() {
+        return totalRating;
     }
 
     /**
@@ -1,17 +1,26 @@
 package entertainment;
 
+import action.managers.search.ActorSearch;
+import database.Database;
 import database.DatabaseTrackable;
 import user.User;
 import common.ActionExceptions;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public abstract class Video implements DatabaseTrackable {
     private final String title;
     private final int launchYear;
     private final HashSet<Genre> genres;
 
+    /**
+     * The dense ID assigned to the video by the database, or -1 if not in the database.
+     */
+    private int id = -1;
+
     public final String getTitle() {
         return title;
     }
@@ -20,6 +29,10 @@ public abstract class Video implements DatabaseTrackable {
         return launchYear;
     }
 
+    public final int getId() {
+        return id;
+    }
+
     public Video(final String title, final int launchYear,
                  final List<Genre> genres) {
         this.title = title;
@@ -39,7 +52,16 @@ public abstract class Video implements DatabaseTrackable {
     }
 
     /**
-     * Adds a rating by the given user to the movie.
+     * Gets the genres of the video.
+     * @return a read-only view of the video's genres
+     */
+    public final Set<Genre> getGenres() {
+        return Collections.unmodifiableSet(genres);
+    }
+
+    /**
+     * Adds a rating by the given user to the movie. Ratings of different users
+     * may be added at the same time.
      * @param rating the rating to add to the video
      * @param index unused, used for Shows
      * @param user the user rating the video
@@ -72,6 +94,22 @@ public abstract class Video implements DatabaseTrackable {
         return title;
     }
 
+    /**
+     * Gets the video's dense ID from the database and adds the views the video
+     * has gathered so far to the views of its genres. If the video is already rated,
+     * the average ratings of the actors cast in it are updated as well.
+     * @param database the database the video has been added to
+     */
+    @Override
+    public void onAddedToDatabase(final Database database) {
+        id = database.retrieveRepository(Video.class).retrieveId(title);
+        database.getVideoStatistics().addVideo(this);
+
+        if (getTotalRating() != 0.0d) {
+            ActorSearch.updateMeanRatings(database, this);
+        }
+    }
+
     /**
      * Prints the title of the video.
      * @return a string containing the title of the video
@@ -0,0 +1,541 @@
+package fileio;
+
+import actor.Actor;
+import actor.ActorsAwards;
+import database.CommandLog;
+import database.Database;
+import database.Repository;
+import entertainment.Genre;
+import entertainment.Movie;
+import entertainment.Season;
+import entertainment.Show;
+import entertainment.Video;
+import user.User;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves the actors, users and videos of a database to a compact binary file and restores
+ * them, so a catalog can be loaded without parsing its JSON input again. The actions are
+ * not saved.
+ * <p>
+ * The file starts with a magic number, a format version and the ID of the command log whose
+ * commands the snapshot contains. Strings are referred to by index: the first reference to
+ * a string is followed by the string itself, which gets the next index. The file is written
+ * and read in a single pass, through a buffered stream and through memory-mapped chunks,
+ * so its size isn't limited by the size of a buffer. The videos keep the dense IDs they had
+ * in the saved database, so the users are restored directly from their ID bitsets.
+ */
+public final class CatalogSnapshot {
+    private CatalogSnapshot() { }
+
+    /**
+     * The magic number at the start of every snapshot, "VDBS".
+     */
+    private static final int MAGIC = 0x56444253;
+
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int VERSION = 4;
+
+    /**
+     * The kinds of videos in a snapshot.
+     */
+    private static final byte MOVIE = 0;
+    private static final byte SHOW = 1;
+
+    /**
+     * Saved instead of the ordinal of a genre unknown to the catalog (a null genre).
+     */
+    private static final byte UNKNOWN_GENRE = -1;
+
+    /**
+     * Checks if the given file is a catalog snapshot, by its magic number.
+     * @param path the path to the file
+     * @return true if the file starts with the snapshot magic number
+     * @throws IOException in case of exceptions to reading the file
+     */
+    public static boolean isSnapshot(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(header, 0) == Integer.BYTES && header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the actors, users and videos of the given database to a snapshot file. The file
+     * is replaced atomically, once the new snapshot has been completely written to the disk.
+     * The ID of the database's command log is saved as well, as its commands are part of
+     * the snapshot.
+     * @param database the database to save
+     * @param path the path to the snapshot file
+     * @throws IOException in case of exceptions to writing the file
+     */
+    public static void write(final Database database, final Path path) throws IOException {
+        // Write to a temporary file next to the snapshot, so the previous snapshot is kept
+        // until the new one is complete
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            // Write the header and the entities, and force them to the disk
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel)));
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(database.getCommandLog() == null
+                        ? CommandLog.NO_ID : database.getCommandLog().getId());
+
+                // The strings already written, by index
+                Map<String, Integer> strings = new HashMap<>();
+                Repository<Video> videoRepository = database.retrieveRepository(Video.class);
+                writeStrings(output, strings, videoRepository.retrieveIdKeys());
+                writeActors(output, strings,
+                        database.retrieveRepository(Actor.class).retrieveAll());
+                writeVideos(output, strings, videoRepository.retrieveAll());
+                writeUsers(output, strings, database.retrieveRepository(User.class).retrieveAll());
+
+                output.flush();
+                channel.force(true);
+            }
+
+            // Replace the previous snapshot with the complete one
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Writes a reference to the given string, followed by the string itself
+     * if it hasn't been written yet.
+     * @param output the output to write to
+     * @param strings the strings already written, mapping each string to its index
+     * @param string the string to refer to
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeString(final DataOutputStream output,
+                                    final Map<String, Integer> strings,
+                                    final String string) throws IOException {
+        Integer index = strings.get(string);
+        if (index != null) {
+            output.writeInt(index);
+            return;
+        }
+
+        // Give the string the next index and write it after its first reference
+        index = strings.size();
+        strings.put(string, index);
+        output.writeInt(index);
+
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Writes the number of the given strings, followed by a reference to each of them.
+     * @param output the output to write to
+     * @param strings the strings already written, mapping each string to its index
+     * @param values the strings to refer to
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeStrings(final DataOutputStream output,
+                                     final Map<String, Integer> strings,
+                                     final Collection<String> values) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            writeString(output, strings, value);
+        }
+    }
+
+    /**
+     * Writes the given actors.
+     * @param output the output to write to
+     * @param strings the strings already written, mapping each string to its index
+     * @param actors the actors to write
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeActors(final DataOutputStream output,
+                                    final Map<String, Integer> strings,
+                                    final List<Actor> actors) throws IOException {
+        output.writeInt(actors.size());
+        for (Actor actor : actors) {
+            writeString(output, strings, actor.getName());
+            writeString(output, strings, actor.getCareerDescription());
+            writeStrings(output, strings, actor.getFilmography());
+
+            output.writeInt(actor.getAwards().size());
+            for (Map.Entry<ActorsAwards, Integer> award : actor.getAwards().entrySet()) {
+                output.writeByte(award.getKey().ordinal());
+                output.writeInt(award.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the given videos, with their ratings.
+     * @param output the output to write to
+     * @param strings the strings already written, mapping each string to its index
+     * @param videos the videos to write
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeVideos(final DataOutputStream output,
+                                    final Map<String, Integer> strings,
+                                    final List<Video> videos) throws IOException {
+        output.writeInt(videos.size());
+        for (Video video : videos) {
+            output.writeByte(video instanceof Show ? SHOW : MOVIE);
+            writeString(output, strings, video.getTitle());
+            output.writeInt(video.getLaunchYear());
+
+            output.writeInt(video.getGenres().size());
+            for (Genre genre : video.getGenres()) {
+                output.writeByte(genre == null ? UNKNOWN_GENRE : genre.ordinal());
+            }
+
+            if (video instanceof Show show) {
+                List<Season> seasons = show.getSeasons();
+                output.writeInt(seasons.size());
+                for (int i = 0; i < seasons.size(); ++i) {
+                    Season season = seasons.get(i);
+                    output.writeInt(season.getCurrentSeason());
+                    output.writeInt(season.getDuration());
+                    output.writeDouble(season.getRatingSum());
+                    output.writeInt(season.getRatingCount());
+                    writeStrings(output, strings, show.getRatedUsers(i + 1));
+                }
+            } else {
+                Movie movie = (Movie) video;
+                output.writeInt(movie.getDuration());
+                output.writeDouble(movie.getRatingSum());
+                output.writeDouble(movie.getRatingCompensation());
+                output.writeInt(movie.getRatingCount());
+                writeStrings(output, strings, movie.getRatedUsers());
+            }
+        }
+    }
+
+    /**
+     * Writes the given users, with their favourites and history by video ID.
+     * @param output the output to write to
+     * @param strings the strings already written, mapping each string to its index
+     * @param users the users to write
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeUsers(final DataOutputStream output,
+                                   final Map<String, Integer> strings,
+                                   final List<User> users) throws IOException {
+        output.writeInt(users.size());
+        for (User user : users) {
+            writeString(output, strings, user.getUsername());
+            output.writeByte(user.getSubscriptionType().ordinal());
+            output.writeInt(user.getRatingCount());
+
+            BitSet favourites = user.getFavouriteIds();
+            output.writeInt(favourites.cardinality());
+            for (int id = favourites.nextSetBit(0); id >= 0; id = favourites.nextSetBit(id + 1)) {
+                output.writeInt(id);
+            }
+
+            BitSet watchedVideos = user.getWatchedVideoIds();
+            int[] viewCounts = user.getViewCounts();
+            output.writeInt(watchedVideos.cardinality());
+            int rank = 0;
+            for (int id = watchedVideos.nextSetBit(0); id >= 0;
+                 id = watchedVideos.nextSetBit(id + 1)) {
+                output.writeInt(id);
+                output.writeInt(viewCounts[rank++]);
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot file, memory-mapping it in chunks, and adds its actors, users and
+     * videos to the given database. The database should be empty, so the videos get their
+     * saved IDs.
+     * @param path the path to the snapshot file
+     * @param database the database to restore the entities in
+     * @return the ID of the command log whose commands the snapshot contains, or NO_ID
+     * @throws IOException in case of exceptions to reading the file, or if it isn't
+     * a snapshot of a supported version
+     */
+    public static long read(final Path path, final Database database) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedInput input = new MappedInput(channel);
+
+            // Check the header
+            if (channel.size() < 2 * Integer.BYTES + Long.BYTES || input.getInt() != MAGIC) {
+                throw new IOException(path + " is not a catalog snapshot");
+            }
+            int version = input.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalog snapshot version " + version);
+            }
+            long commandLogId = input.getLong();
+
+            // The strings already read, by index
+            List<String> strings = new ArrayList<>();
+
+            // Give the video titles their saved IDs, in order
+            Repository<Video> videoRepository = database.retrieveRepository(Video.class);
+            readStrings(input, strings).forEach(videoRepository::retrieveId);
+
+            // Read the entities and add them to the database
+            database.add(readActors(input, strings), Actor.class);
+            List<Video> videos = readVideos(input, strings);
+            database.add(readUsers(input, strings), User.class);
+            database.add(videos, Video.class);
+
+            return commandLogId;
+        }
+    }
+
+    /**
+     * Reads a string reference, followed by the string itself if it is read for the first time.
+     * @param input the input to read from
+     * @param strings the strings already read, by index
+     * @return the referred string
+     * @throws IOException in case of exceptions to reading
+     */
+    private static String readString(final MappedInput input, final List<String> strings)
+            throws IOException {
+        int index = input.getInt();
+        if (index == strings.size()) {
+            byte[] bytes = new byte[input.getInt()];
+            input.get(bytes);
+            strings.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        return strings.get(index);
+    }
+
+    /**
+     * Reads a number of string references, followed by the references.
+     * @param input the input to read from
+     * @param strings the strings already read, by index
+     * @return the referred strings
+     * @throws IOException in case of exceptions to reading
+     */
+    private static List<String> readStrings(final MappedInput input, final List<String> strings)
+            throws IOException {
+        int count = input.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            values.add(readString(input, strings));
+        }
+
+        return values;
+    }
+
+    /**
+     * Reads the actors.
+     * @param input the input to read from
+     * @param strings the strings already read, by index
+     * @return the actors
+     * @throws IOException in case of exceptions to reading
+     */
+    private static List<Actor> readActors(final MappedInput input, final List<String> strings)
+            throws IOException {
+        int count = input.getInt();
+        List<Actor> actors = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            String name = readString(input, strings);
+            String careerDescription = readString(input, strings);
+            List<String> filmography = readStrings(input, strings);
+
+            int awardCount = input.getInt();
+            Map<ActorsAwards, Integer> awards = new HashMap<>();
+            for (int j = 0; j < awardCount; ++j) {
+                awards.put(ActorsAwards.values()[input.get()], input.getInt());
+            }
+
+            actors.add(new Actor(name, careerDescription, filmography, awards));
+        }
+
+        return actors;
+    }
+
+    /**
+     * Reads the videos, with their ratings.
+     * @param input the input to read from
+     * @param strings the strings already read, by index
+     * @return the videos
+     * @throws IOException in case of exceptions to reading
+     */
+    private static List<Video> readVideos(final MappedInput input, final List<String> strings)
+            throws IOException {
+        int count = input.getInt();
+        List<Video> videos = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            byte kind = input.get();
+            String title = readString(input, strings);
+            int launchYear = input.getInt();
+
+            int genreCount = input.getInt();
+            List<Genre> genres = new ArrayList<>(genreCount);
+            for (int j = 0; j < genreCount; ++j) {
+                byte genre = input.get();
+                genres.add(genre == UNKNOWN_GENRE ? null : Genre.values()[genre]);
+            }
+
+            if (kind == SHOW) {
+                int seasonCount = input.getInt();
+                List<Season> seasons = new ArrayList<>(seasonCount);
+                double[] ratingSums = new double[seasonCount];
+                int[] ratingCounts = new int[seasonCount];
+                List<List<String>> ratedUsers = new ArrayList<>(seasonCount);
+                for (int j = 0; j < seasonCount; ++j) {
+                    seasons.add(new Season(input.getInt(), input.getInt()));
+                    ratingSums[j] = input.getDouble();
+                    ratingCounts[j] = input.getInt();
+                    ratedUsers.add(readStrings(input, strings));
+                }
+
+                Show show = new Show(title, launchYear, genres, seasons);
+                for (int j = 0; j < seasonCount; ++j) {
+                    if (ratingCounts[j] != 0 || !ratedUsers.get(j).isEmpty()) {
+                        show.restoreRatings(j + 1, ratingSums[j], ratingCounts[j],
+                                ratedUsers.get(j));
+                    }
+                }
+                videos.add(show);
+            } else {
+                Movie movie = new Movie(title, launchYear, input.getInt(), genres);
+                movie.restoreRatings(input.getDouble(), input.getDouble(), input.getInt(),
+                        readStrings(input, strings));
+                videos.add(movie);
+            }
+        }
+
+        return videos;
+    }
+
+    /**
+     * Reads the users, with their favourites and history by video ID.
+     * @param input the input to read from
+     * @param strings the strings already read, by index
+     * @return the users
+     * @throws IOException in case of exceptions to reading
+     */
+    private static List<User> readUsers(final MappedInput input, final List<String> strings)
+            throws IOException {
+        int count = input.getInt();
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            String username = readString(input, strings);
+            User.SubscriptionType subscriptionType =
+                    User.SubscriptionType.values()[input.get()];
+            int ratingCount = input.getInt();
+
+            BitSet favourites = new BitSet();
+            int favouriteCount = input.getInt();
+            for (int j = 0; j < favouriteCount; ++j) {
+                favourites.set(input.getInt());
+            }
+
+            // The watched videos are saved in the order of their IDs,
+            // which is the order of their view counts
+            BitSet watchedVideos = new BitSet();
+            int[] viewCounts = new int[input.getInt()];
+            for (int j = 0; j < viewCounts.length; ++j) {
+                watchedVideos.set(input.getInt());
+                viewCounts[j] = input.getInt();
+            }
+
+            users.add(new User(username, subscriptionType, favourites, watchedVideos,
+                    viewCounts, ratingCount));
+        }
+
+        return users;
+    }
+
+    /**
+     * Reads the primitive values of a file through read-only memory mappings of consecutive
+     * chunks of it, so files larger than a single mapping (2 GB) can be read.
+     */
+    private static final class MappedInput {
+        /**
+         * The size of the chunks that are mapped.
+         */
+        private static final long CHUNK_SIZE = 64L * 1024 * 1024;
+
+        private final FileChannel channel;
+
+        /**
+         * The mapped chunk and the position in the file where it starts.
+         */
+        private MappedByteBuffer chunk;
+        private long chunkStart;
+
+        MappedInput(final FileChannel channel) throws IOException {
+            this.channel = channel;
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(CHUNK_SIZE, channel.size()));
+        }
+
+        /**
+         * Gets the mapped chunk, mapping the next one first if fewer than the given number
+         * of bytes are left in the current one.
+         * @param bytes the number of bytes to read
+         * @return the chunk to read the bytes from
+         * @throws IOException in case of exceptions to reading, or if the file ends first
+         */
+        private MappedByteBuffer require(final int bytes) throws IOException {
+            if (chunk.remaining() < bytes) {
+                // Map the chunk starting at the current position
+                long position = chunkStart + chunk.position();
+                long size = Math.min(Math.max(CHUNK_SIZE, bytes), channel.size() - position);
+                if (size < bytes) {
+                    throw new EOFException("Catalog snapshot ended unexpectedly");
+                }
+
+                chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                chunkStart = position;
+            }
+
+            return chunk;
+        }
+
+        byte get() throws IOException {
+            return require(Byte.BYTES).get();
+        }
+
+        void get(final byte[] bytes) throws IOException {
+            require(bytes.length).get(bytes);
+        }
+
+        int getInt() throws IOException {
+            return require(Integer.BYTES).getInt();
+        }
+
+        long getLong() throws IOException {
+            return require(Long.BYTES).getLong();
+        }
+
+        double getDouble() throws IOException {
+            return require(Double.BYTES).getDouble();
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package fileio;
+
+import action.Action;
+import action.ActionFactory;
+import actor.Actor;
+import actor.ActorsAwards;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import common.Constants;
+import database.Database;
+import entertainment.Genre;
+import entertainment.Movie;
+import entertainment.Season;
+import entertainment.Show;
+import entertainment.Video;
+import user.User;
+import utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an input file with a streaming JSON parser, creating the actors, users, videos and
+ * actions as their records are read and storing them in the database right away. Only the
+ * record being read is kept in memory, instead of the whole file.
+ */
+public final class StreamingInputLoader {
+    /**
+     * Reads a single record, starting at the current token of the parser.
+     */
+    @FunctionalInterface
+    private interface RecordReader {
+        void read() throws IOException;
+    }
+
+    /**
+     * The path to the input file
+     */
+    private final String inputPath;
+
+    /**
+     * The parser of the input file, while it is being read
+     */
+    private JsonParser parser;
+
+    /**
+     * The database to store the records in, while the file is being read
+     */
+    private Database database;
+
+    public StreamingInputLoader(final String inputPath) {
+        this.inputPath = inputPath;
+    }
+
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    /**
+     * Reads the input file and stores the entities and the actions in the given database.
+     * @param targetDatabase the database to store the records in
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    public void load(final Database targetDatabase) throws IOException {
+        database = targetDatabase;
+
+        try (JsonParser jsonParser = new JsonFactory().createParser(new File(inputPath))) {
+            parser = jsonParser;
+
+            // Read the fields of the main object
+            readObject(() -> {
+                switch (parser.getCurrentName()) {
+                    case Constants.DATABASE -> readObject(this::readDatabaseField);
+                    case Constants.ACTIONS -> readArray(this::readAction);
+                    default -> parser.skipChildren();
+                }
+            });
+        } finally {
+            parser = null;
+            database = null;
+        }
+    }
+
+    /**
+     * Reads an object, calling the given reader for each field, after moving to its value.
+     * Does nothing if the current value is null.
+     * @param fieldReader the reader of the fields
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private void readObject(final RecordReader fieldReader) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            fieldReader.read();
+        }
+    }
+
+    /**
+     * Reads an array, calling the given reader for each element. Does nothing if
+     * the current value is null.
+     * @param elementReader the reader of the elements
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private void readArray(final RecordReader elementReader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            elementReader.read();
+        }
+    }
+
+    /**
+     * Reads an array of strings.
+     * @return the list of strings, or null if the current value is null
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private List<String> readStringList() throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        List<String> strings = new ArrayList<>();
+        readArray(() -> strings.add(parser.getValueAsString()));
+
+        return strings;
+    }
+
+    /**
+     * Reads the current value as an integer, whether it is a number or a string.
+     * @return the integer value
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private int readInt() throws IOException {
+        return Integer.parseInt(parser.getValueAsString());
+    }
+
+    /**
+     * Reads a field of the database object, storing each record of its arrays
+     * in the database as soon as it is read.
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private void readDatabaseField() throws IOException {
+        switch (parser.getCurrentName()) {
+            case Constants.ACTORS -> readArray(() -> database.add(List.of(readActor())));
+            case Constants.USERS -> readArray(() -> database.add(List.of(readUser())));
+            case Constants.MOVIES ->
+                    readArray(() -> database.add(List.of(readMovie()), Video.class));
+            case Constants.SHOWS ->
+                    readArray(() -> database.add(List.of(readShow()), Video.class));
+            default -> parser.skipChildren();
+        }
+    }
+
+    /**
+     * Reads an actor record.
+     * @return the new actor
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private Actor readActor() throws IOException {
+        String[] name = new String[1];
+        String[] careerDescription = new String[1];
+        List<String> filmography = new ArrayList<>();
+        Map<ActorsAwards, Integer> awards = new LinkedHashMap<>();
+
+        readObject(() -> {
+            switch (parser.getCurrentName()) {
+                case Constants.NAME -> name[0] = parser.getValueAsString();
+                case Constants.DESCRIPTION -> careerDescription[0] = parser.getValueAsString();
+                case Constants.FILMOGRAPHY -> filmography.addAll(readStringList());
+                case Constants.AWARDS -> readArray(() -> readAward(awards));
+                default -> parser.skipChildren();
+            }
+        });
+
+        return new Actor(name[0], careerDescription[0], filmography, awards);
+    }
+
+    /**
+     * Reads an award record of an actor.
+     * @param awards the awards of the actor, to add the award to
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private void readAward(final Map<ActorsAwards, Integer> awards) throws IOException {
+        String[] awardType = new String[1];
+        int[] numberOfAwards = new int[1];
+
+        readObject(() -> {
+            switch (parser.getCurrentName()) {
+                case Constants.AWARD_TYPE -> awardType[0] = parser.getValueAsString();
+                case Constants.NUMBER_OF_AWARDS -> numberOfAwards[0] = readInt();
+                default -> parser.skipChildren();
+            }
+        });
+
+        awards.put(Utils.stringToAwards(awardType[0]), numberOfAwards[0]);
+    }
+
+    /**
+     * Reads a user record.
+     * @return the new user
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private User readUser() throws IOException {
+        String[] username = new String[1];
+        String[] subscriptionType = new String[1];
+        List<String> favourites = new ArrayList<>();
+        Map<String, Integer> history = new LinkedHashMap<>();
+
+        readObject(() -> {
+            switch (parser.getCurrentName()) {
+                case Constants.USERNAME -> username[0] = parser.getValueAsString();
+                case Constants.SUBSCRIPTION -> subscriptionType[0] = parser.getValueAsString();
+                case Constants.FAVORITE_MOVIES -> favourites.addAll(readStringList());
+                case Constants.HISTORY -> readArray(() -> readHistoryEntry(history));
+                default -> parser.skipChildren();
+            }
+        });
+
+        return new User(
+                username[0],
+                Utils.stringToSubscriptionType(subscriptionType[0]),
+                favourites,
+                history
+        );
+    }
+
+    /**
+     * Reads a history entry of a user.
+     * @param history the history of the user, to add the entry to
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private void readHistoryEntry(final Map<String, Integer> history) throws IOException {
+        String[] title = new String[1];
+        int[] views = new int[1];
+
+        readObject(() -> {
+            switch (parser.getCurrentName()) {
+                case Constants.NAME -> title[0] = parser.getValueAsString();
+                case Constants.NUMBER_VIEWS -> views[0] = readInt();
+                default -> parser.skipChildren();
+            }
+        });
+
+        history.put(title[0], views[0]);
+    }
+
+    /**
+     * Reads a movie record.
+     * @return the new movie
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private Movie readMovie() throws IOException {
+        String[] title = new String[1];
+        int[] yearAndDuration = new int[2];
+        List<Genre> genres = new ArrayList<>();
+
+        readObject(() -> {
+            switch (parser.getCurrentName()) {
+                case Constants.NAME -> title[0] = parser.getValueAsString();
+                case Constants.YEAR -> yearAndDuration[0] = readInt();
+                case Constants.DURATION -> yearAndDuration[1] = readInt();
+                case Constants.GENRES ->
+                        genres.addAll(Utils.stringListToGenreList(readStringList()));
+                default -> parser.skipChildren();
+            }
+        });
+
+        return new Movie(title[0], yearAndDuration[0], yearAndDuration[1], genres);
+    }
+
+    /**
+     * Reads a show record.
+     * @return the new show
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private Show readShow() throws IOException {
+        String[] title = new String[1];
+        int[] year = new int[1];
+        List<Genre> genres = new ArrayList<>();
+        List<Season> seasons = new ArrayList<>();
+
+        readObject(() -> {
+            switch (parser.getCurrentName()) {
+                case Constants.NAME -> title[0] = parser.getValueAsString();
+                case Constants.YEAR -> year[0] = readInt();
+                case Constants.GENRES ->
+                        genres.addAll(Utils.stringListToGenreList(readStringList()));
+                case Constants.SEASONS -> readArray(() -> seasons.add(readSeason()));
+                default -> parser.skipChildren();
+            }
+        });
+
+        return new Show(title[0], year[0], genres, seasons);
+    }
+
+    /**
+     * Reads a season record of a show.
+     * @return the new season
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private Season readSeason() throws IOException {
+        int[] currentSeasonAndDuration = new int[2];
+
+        readObject(() -> {
+            switch (parser.getCurrentName()) {
+                case Constants.CURRENT_SEASON -> currentSeasonAndDuration[0] = readInt();
+                case Constants.DURATION -> currentSeasonAndDuration[1] = readInt();
+                default -> parser.skipChildren();
+            }
+        });
+
+        return new Season(currentSeasonAndDuration[0], currentSeasonAndDuration[1]);
+    }
+
+    /**
+     * Reads an action record, creates the action and stores it in the database.
+     * @throws IOException in case of exceptions to reading or parsing the file
+     */
+    private void readAction() throws IOException {
+        ActionInputData actionInput = readActionInput(parser, defaultNumber(database));
+
+        if (actionInput != null) {
+            database.add(List.of(ActionFactory.createAction(actionInput)), Action.class);
+        }
+    }
+
+    /**
+     * Gets the number of results of the queries that don't specify it,
+     * which is large enough to include all the entities of the given database.
+     * @param database the database the queries are executed on
+     * @return the default number of results
+     */
+    public static int defaultNumber(final Database database) {
+        return Math.max(Math.max(
+                database.retrieveRepository(Video.class).size(),
+                database.retrieveRepository(User.class).size()),
+                database.retrieveRepository(Actor.class).size());
+    }
+
+    /**
+     * Reads an action record, starting at the current token of the given parser.
+     * @param jsonParser the parser positioned on the action object
+     * @param defaultNumber the number of results of the queries that don't specify it
+     * @return the action input data, or null if the action type is unknown
+     * @throws IOException in case of exceptions to reading or parsing the action
+     */
+    public static ActionInputData readActionInput(final JsonParser jsonParser,
+                                                  final int defaultNumber)
+            throws IOException {
+        StreamingInputLoader loader = new StreamingInputLoader(null);
+        loader.parser = jsonParser;
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        Map<String, String> filters = new LinkedHashMap<>();
+        Map<String, List<String>> filterLists = new LinkedHashMap<>();
+
+        loader.readObject(() -> {
+            String field = jsonParser.getCurrentName();
+            if (field.equals(Constants.FILTERS)) {
+                loader.readObject(() -> {
+                    String filter = jsonParser.getCurrentName();
+                    if (filter.equals(Constants.WORDS) || filter.equals(Constants.AWARDS)) {
+                        filterLists.put(filter, loader.readStringList());
+                    } else {
+                        filters.put(filter, jsonParser.getValueAsString());
+                        jsonParser.skipChildren();
+                    }
+                });
+            } else {
+                fields.put(field, jsonParser.getValueAsString());
+                jsonParser.skipChildren();
+            }
+        });
+
+        String actionType = fields.get(Constants.ACTION_TYPE);
+        if (actionType == null) {
+            return null;
+        }
+
+        int actionId = Integer.parseInt(fields.get(Constants.ID));
+
+        return switch (actionType) {
+            case Constants.COMMAND -> new ActionInputData(
+                    actionId,
+                    actionType,
+                    fields.get(Constants.TYPE),
+                    fields.get(Constants.USER),
+                    fields.get(Constants.TITLE),
+                    fields.get(Constants.GRADE) == null
+                            ? 0 : Double.parseDouble(fields.get(Constants.GRADE)),
+                    fields.get(Constants.SEASON) == null
+                            ? 0 : Integer.parseInt(fields.get(Constants.SEASON))
+            );
+            case Constants.QUERY -> new ActionInputData(
+                    actionId,
+                    actionType,
+                    fields.get(Constants.OBJECT),
+                    filters.get(Constants.GENRE),
+                    fields.get(Constants.SORT),
+                    fields.get(Constants.CRITERIA),
+                    filters.get(Constants.YEAR),
+                    fields.get(Constants.NUMBER) == null
+                            ? defaultNumber : Integer.parseInt(fields.get(Constants.NUMBER)),
+                    filterLists.get(Constants.WORDS),
+                    filterLists.get(Constants.AWARDS)
+            );
+            case Constants.RECOMMENDATION -> new ActionInputData(
+                    actionId,
+                    actionType,
+                    fields.get(Constants.TYPE),
+                    fields.get(Constants.USERNAME),
+                    fields.get(Constants.GENRE)
+            );
+            default -> null;
+        };
+    }
+}
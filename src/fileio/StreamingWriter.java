@@ -0,0 +1,77 @@
+package fileio;
+
+import common.Constants;
+import org.json.simple.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Writes the output records to a file as they are produced, instead of keeping them
+ * in a JSON array until the end. The file contents are the same as the ones
+ * written by Writer, with the array opened before the first record and closed on close.
+ */
+public final class StreamingWriter implements Closeable {
+    /**
+     * The buffered writer of the output file
+     */
+    private final BufferedWriter file;
+
+    /**
+     * Whether a record has already been written, so the next ones are preceded by a separator
+     */
+    private boolean hasRecords = false;
+
+    public StreamingWriter(final String path) throws IOException {
+        this.file = new BufferedWriter(new FileWriter(path));
+
+        // Open the output array
+        file.write('[');
+    }
+
+    /**
+     * Appends the output of an action to the file.
+     * @param id of the action
+     * @param message to be written
+     * @throws IOException in case of exceptions to writing
+     */
+    @SuppressWarnings("unchecked")
+    public void write(final int id, final String message) throws IOException {
+        // Format the record the same way Writer does
+        JSONObject object = new JSONObject();
+        object.put(Constants.ID_STRING, id);
+        object.put(Constants.MESSAGE, message);
+
+        // Separate the record from the previous one
+        if (hasRecords) {
+            file.write(',');
+        }
+        hasRecords = true;
+
+        file.write(object.toJSONString());
+    }
+
+    /**
+     * Flushes the records written so far to the file, so they can be read before
+     * the file is closed.
+     * @throws IOException in case of exceptions to writing
+     */
+    public void flush() throws IOException {
+        file.flush();
+    }
+
+    /**
+     * Closes the output array and the file.
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            file.write(']');
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -1,28 +1,17 @@
 package main;
 
 import action.Action;
-import action.ActionFactory;
-import actor.Actor;
+import action.CommandPipeline;
+import action.actions.Command;
+import action.managers.search.ActorSearch;
+import action.managers.search.UserSearch;
+import action.managers.search.VideoSearch;
 import checker.Checkstyle;
 import checker.Checker;
 import common.Constants;
 import database.Database;
-import database.DatabaseTrackable;
-import entertainment.Movie;
-import entertainment.Show;
-import entertainment.Video;
-import fileio.ActionInputData;
-import fileio.ActorInputData;
-import fileio.Input;
-import fileio.InputLoader;
-import fileio.MovieInputData;
-import fileio.SerialInputData;
-import fileio.UserInputData;
-import fileio.Writer;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import user.User;
-import utils.Utils;
+import fileio.StreamingInputLoader;
+import fileio.StreamingWriter;
 
 import java.io.File;
 import java.io.IOException;
@@ -30,14 +19,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implementation.
  */
 public final class Main {
+    /**
+     * The maximum number of actions executed together, bounding the number of outputs kept
+     * in memory before they are written.
+     */
+    private static final int MAX_RUN_LENGTH = 1024;
+
     /**
      * for coding style
      */
@@ -61,136 +59,154 @@ public final class Main {
         Checker checker = new Checker();
         checker.deleteFiles(outputDirectory.listFiles());
 
+        List<File> inputFiles = new ArrayList<>();
         for (File file : Objects.requireNonNull(directory.listFiles())) {
 
             String filepath = Constants.OUT_PATH + file.getName();
             File out = new File(filepath);
             boolean isCreated = out.createNewFile();
             if (isCreated) {
-                action(file.getAbsolutePath(), filepath);
+                inputFiles.add(file);
             }
         }
 
+        // Process the input files concurrently
+        actionInParallel(inputFiles);
+
         checker.iterateFiles(Constants.RESULT_PATH, Constants.REF_PATH, Constants.TESTS_PATH);
         Checkstyle test = new Checkstyle();
         test.testCheckstyle();
     }
 
     /**
-     * Reads the input and stores it in the database.
-     * @param input the input data
+     * Processes the given input files concurrently, each one with its own database,
+     * and writes their outputs to the result folder. The files share a single command
+     * pipeline. The number of threads, of both the file workers and the pipeline, is read from
+     * the videosdb.threads system property, defaulting to the number of available processors.
+     * @param inputFiles the input files to process
+     * @throws IOException in case of exceptions to reading / writing any of the files
      */
-    private static void readAndStoreInput(final Input input) {
-        // Read the actors
-        List<ActorInputData> actorInput = input.getActors();
-        ArrayList<Actor> actors = new ArrayList<>();
-
-        // For each actor in the input list, create a new Actor and add them to the actors list
-        actorInput.forEach(actor -> actors.add(new Actor(
-                actor.getName(),
-                actor.getCareerDescription(),
-                actor.getFilmography(),
-                actor.getAwards()
-        )));
-
-        // Read the users
-        List<UserInputData> userInput = input.getUsers();
-        ArrayList<User> users = new ArrayList<>();
-
-        // For each user in the input list, create a new User and add them to the users list
-        userInput.forEach(user -> users.add(new User(
-                user.getUsername(),
-                Utils.stringToSubscriptionType(user.getSubscriptionType()),
-                user.getFavoriteMovies(),
-                user.getHistory()
-        )));
-
-        // Read the videos
-        ArrayList<Video> videos = new ArrayList<>();
-
-        // Read the movies
-        List<MovieInputData> movieInput = input.getMovies();
-
-        // For each movie in the input list, create a new Movie and add it to the movies list
-        movieInput.forEach(movie -> videos.add(new Movie(
-                movie.getTitle(),
-                movie.getYear(),
-                movie.getDuration(),
-                Utils.stringListToGenreList(movie.getGenres())
-        )));
-
-        // Read the shows
-        List<SerialInputData> serialInput = input.getSerials();
-
-        // For each show in the input list, create a new Show and add it to the shows list
-        serialInput.forEach(show -> videos.add(new Show(
-                show.getTitle(),
-                show.getYear(),
-                Utils.stringListToGenreList(show.getGenres()),
-                show.getSeasons()
-        )));
-
-        // Add everything to the database
-        Database.getInstance().add(actors);
-        Database.getInstance().add(users);
-        Database.getInstance().add(videos, Video.class);
+    private static void actionInParallel(final List<File> inputFiles) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount());
+        CommandPipeline pipeline = new CommandPipeline(threadCount());
+
+        try {
+            // Submit each input file to the thread pool
+            List<Future<?>> results = new ArrayList<>();
+            for (File file : inputFiles) {
+                results.add(executor.submit(() -> {
+                    action(file.getAbsolutePath(), Constants.OUT_PATH + file.getName(),
+                            pipeline);
+                    return null;
+                }));
+            }
+
+            // Wait for all the files to be processed, rethrowing the first failure
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            pipeline.close();
+        }
     }
 
     /**
-     * Reads the actions from the input and stores them in the database.
-     * @param input the input data
+     * Gets the number of threads to use, read from the videosdb.threads system property,
+     * defaulting to the number of available processors.
+     * @return the number of threads
      */
-    private static void readAndStoreActions(final Input input) {
-        // Read the actions
-        List<ActionInputData> actionInputList = input.getCommands();
-
-        // For each input action, create a new Action object with the help of the ActionFactory
-        List<Action> actions = actionInputList.stream()
-                .map(ActionFactory::createAction)
-                .toList();
+    static int threadCount() {
+        return Math.max(Integer.getInteger(Constants.THREADS_PROPERTY,
+                Runtime.getRuntime().availableProcessors()), 1);
+    }
 
-        // Store the actions in the database
-        Database.getInstance().add(actions, Action.class);
+    /**
+     * Adds the indexes used by the actions to the given database. The leaderboards used by
+     * the queries are added as well, unless the videosdb.leaderboards system property
+     * is set to false.
+     * @param database the database to index
+     */
+    static void addIndexes(final Database database) {
+        // Index the actors by description words and filmography,
+        // and the videos by genre and launch year
+        ActorSearch.addIndexes(database);
+        VideoSearch.addIndexes(database);
+
+        // Keep the videos and the users ranked for the queries
+        if (Boolean.parseBoolean(System.getProperty(Constants.LEADERBOARDS_PROPERTY, "true"))) {
+            VideoSearch.addLeaderboards(database);
+            UserSearch.addLeaderboards(database);
+        }
     }
 
     /**
-     * Goes through each action in the database, in order of IDs, and executes them.
-     * @param fileWriter formats messages to JSON
-     * @param arrayResult stores the JSON-formatted action outputs
+     * Goes through each action in the database, in order of IDs, executes them and writes
+     * their outputs in order. Runs of consecutive read-only actions (queries and
+     * recommendations) are executed in parallel, while runs of commands are executed by
+     * a command pipeline, sharded by user. The outputs of a run are written once all of
+     * its actions return, so runs are cut at MAX_RUN_LENGTH actions.
+     * @param database the database to execute the actions on
+     * @param fileWriter writes the JSON-formatted action outputs
+     * @param pipeline the command pipeline executing the runs of commands
+     * @throws IOException in case of exceptions to writing
      */
     private static void executeActionsAndWriteOutput(
-            final Writer fileWriter, final JSONArray arrayResult) {
+            final Database database, final StreamingWriter fileWriter,
+            final CommandPipeline pipeline) throws IOException {
         // Retrieve the actions from the database
-        LinkedHashMap<String, DatabaseTrackable> actions;
-        actions = Database.getInstance().retrieveClassEntities(Action.class);
-
-        // Iterate though each action and execute it
-        for (DatabaseTrackable databaseTrackable : actions.values()) {
-            // Define the action
-            Action action;
-
-            try {
-                // Try to cast the databaseTrackable to Action
-                action = (Action) databaseTrackable;
-            } catch (ClassCastException e) {
-                continue;
+        List<Action> actions = database.retrieveRepository(Action.class).retrieveAll();
+
+        int start = 0;
+        while (start < actions.size()) {
+            // Find the run of read-only actions, or of commands, starting here
+            boolean isReadOnlyRun = actions.get(start).isReadOnly();
+            int end = start + 1;
+            while (end < actions.size() && end - start < MAX_RUN_LENGTH
+                    && actions.get(end).isReadOnly() == isReadOnlyRun) {
+                ++end;
             }
+            List<Action> run = actions.subList(start, end);
+            start = end;
 
-            // Execute the action and keep the output
-            String actionOutput = action.execute();
+            // Execute a single action directly
+            if (run.size() == 1) {
+                writeOutputs(fileWriter, run, List.of(run.get(0).execute(database)));
+                continue;
+            }
 
-            try {
-                // Write the output to the file
-                JSONObject jsonObj = fileWriter.writeFile(
-                        action.getID(),
-                        "", actionOutput
-                );
+            // Execute the read-only actions in parallel, keeping their order,
+            // and the commands on the pipeline
+            writeOutputs(fileWriter, run, isReadOnlyRun
+                    ? run.parallelStream().map(action -> action.execute(database)).toList()
+                    : pipeline.execute(run.stream().map(Command.class::cast).toList(),
+                            database));
+        }
+    }
 
-                arrayResult.add(jsonObj);
-            } catch (IOException e) {
-                // Do nothing
-            }
+    /**
+     * Writes the outputs of the given actions to the file, in order, and flushes them.
+     * @param fileWriter writes the JSON-formatted action outputs
+     * @param actions the executed actions
+     * @param outputs the outputs of the actions
+     * @throws IOException in case of exceptions to writing
+     */
+    private static void writeOutputs(final StreamingWriter fileWriter, final List<Action> actions,
+                                     final List<String> outputs) throws IOException {
+        for (int i = 0; i < actions.size(); ++i) {
+            fileWriter.write(actions.get(i).getID(), outputs.get(i));
         }
+
+        // Let the outputs be read while the next actions are executed
+        fileWriter.flush();
     }
 
     /**
@@ -200,24 +216,33 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
-        InputLoader inputLoader = new InputLoader(filePath1);
-        Input input = inputLoader.readData();
-
-        Writer fileWriter = new Writer(filePath2);
-        JSONArray arrayResult = new JSONArray();
-
-        // Read the input and store the information in the database
-        readAndStoreInput(input);
+        try (CommandPipeline pipeline = new CommandPipeline(threadCount())) {
+            action(filePath1, filePath2, pipeline);
+        }
+    }
 
-        // Read the input actions and store them in the database
-        readAndStoreActions(input);
+    /**
+     * Processes a single input file, executing its runs of commands on the given pipeline.
+     * @param filePath1 for input file
+     * @param filePath2 for output file
+     * @param pipeline the command pipeline, possibly shared with other files
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    private static void action(final String filePath1, final String filePath2,
+                               final CommandPipeline pipeline) throws IOException {
+        // Create a new database for the input file
+        Database database = new Database();
 
-        // Go through each action, in order, and execute it
-        executeActionsAndWriteOutput(fileWriter, arrayResult);
+        try (StreamingWriter fileWriter = new StreamingWriter(filePath2)) {
+            // Add the indexes and the leaderboards used by the actions
+            addIndexes(database);
 
-        // Clear the database
-        Database.getInstance().clear();
+            // Read the input, storing the entities and the actions in the database
+            // as they are read
+            new StreamingInputLoader(filePath1).load(database);
 
-        fileWriter.closeJSON(arrayResult);
+            // Go through each action, in order, and execute it
+            executeActionsAndWriteOutput(database, fileWriter, pipeline);
+        }
     }
 }
@@ -0,0 +1,272 @@
+package main;
+
+import action.Action;
+import action.ActionFactory;
+import action.actions.Command;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import common.Constants;
+import database.CommandLog;
+import database.Database;
+import fileio.ActionInputData;
+import fileio.CatalogSnapshot;
+import fileio.StreamingInputLoader;
+import org.json.simple.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A resident server that loads the catalog once and then executes actions received as
+ * newline-delimited JSON, writing one JSON result per line. The actions are read from the
+ * standard input or, if a port is given, from the clients connecting to it on the loopback
+ * interface, served concurrently. Read-only actions are executed at the same time, while the
+ * commands are executed alone, so the actions never see a command half applied. Each client
+ * has its own thread, while the actions of all the clients are executed on a fixed pool.
+ */
+public final class Server {
+    /**
+     * The maximum number of results held back while waiting for more actions
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /**
+     * The database holding the catalog
+     */
+    private final Database database;
+
+    /**
+     * The factory of the parsers of the received actions
+     */
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * The thread pool executing the actions of all the clients
+     */
+    private final ExecutorService actionExecutor;
+
+    public Server(final Database database, final ExecutorService actionExecutor) {
+        this.database = database;
+        this.actionExecutor = actionExecutor;
+    }
+
+    /**
+     * Loads the catalog from the input file or the catalog snapshot given as the first
+     * argument and serves actions from the standard input, or from the port given as the
+     * second argument. If the videosdb.commandlog system property is set, the commands in the
+     * log at the path it gives are replayed on top of the catalog, and the successful commands
+     * are logged to it from then on. If the videosdb.snapshot system property is set, a
+     * snapshot of the loaded catalog is written to the path it gives, and the command log,
+     * whose commands are now part of the snapshot, is emptied.
+     * @param args the input file or snapshot path, optionally followed by the port
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: Server <input file | snapshot> [port]");
+            return;
+        }
+
+        // Load the catalog, with the indexes and leaderboards used by the actions
+        Database database = new Database();
+        Main.addIndexes(database);
+        Path inputPath = Paths.get(args[0]);
+        long snapshotLogId = CommandLog.NO_ID;
+        if (CatalogSnapshot.isSnapshot(inputPath)) {
+            snapshotLogId = CatalogSnapshot.read(inputPath, database);
+        } else {
+            new StreamingInputLoader(args[0]).load(database);
+        }
+
+        // Replay the logged commands and keep logging the new ones, if requested.
+        // A log whose commands are already in the snapshot is emptied instead of replayed
+        String commandLogPath = System.getProperty(Constants.COMMAND_LOG_PROPERTY);
+        if (commandLogPath != null) {
+            database.setCommandLog(CommandLog.open(Paths.get(commandLogPath), snapshotLogId,
+                    entry -> Command.fromLogEntry(entry).execute(database)));
+        }
+
+        // Save the loaded catalog, if requested, then empty the log. The snapshot records
+        // the log's ID, so a crash before the log is emptied doesn't replay it twice
+        String snapshotPath = System.getProperty(Constants.SNAPSHOT_PROPERTY);
+        if (snapshotPath != null) {
+            CatalogSnapshot.write(database, Paths.get(snapshotPath));
+            if (database.getCommandLog() != null) {
+                database.getCommandLog().reset();
+            }
+        }
+
+        ExecutorService actionExecutor = Executors.newFixedThreadPool(Main.threadCount());
+        Server server = new Server(database, actionExecutor);
+
+        try {
+            // Serve the standard input if no port is given
+            if (args.length == 1) {
+                server.serve(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                        new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                return;
+            }
+
+            // Otherwise, serve each client connecting to the port on its own thread, so idle
+            // clients never keep the other ones waiting
+            ExecutorService clientExecutor = Executors.newCachedThreadPool();
+            try (ServerSocket serverSocket = new ServerSocket(
+                    Integer.parseInt(args[1]), 0, InetAddress.getLoopbackAddress())) {
+                while (!serverSocket.isClosed()) {
+                    Socket client = serverSocket.accept();
+                    clientExecutor.execute(() -> server.serveClient(client));
+                }
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        } finally {
+            actionExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Serves the actions of the given client, until it closes the connection.
+     * @param client the socket of the client
+     */
+    private void serveClient(final Socket client) {
+        try (client) {
+            serve(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8),
+                    new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Drop the client and keep serving the other ones
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Executes each action read from the given input, one per line, and writes its result
+     * to the given output, until the end of the input. The results are sent as soon as there
+     * is no more input waiting, or a batch is full, after the commands executed so far have
+     * been made durable with a single sync of the command log.
+     * @param input the newline-delimited JSON actions
+     * @param output the newline-delimited JSON results
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public void serve(final Reader input, final Writer output) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        BufferedWriter writer = new BufferedWriter(output);
+        List<String> pendingResults = new ArrayList<>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Execute the action on the action thread pool, skipping empty lines
+            if (!line.isBlank()) {
+                pendingResults.add(executeOnPool(line).toJSONString());
+            }
+
+            // Send the results if no more actions are waiting, or if the batch is full
+            if (!reader.ready() || pendingResults.size() >= MAX_BATCH_SIZE) {
+                sendResults(pendingResults, writer);
+            }
+        }
+
+        sendResults(pendingResults, writer);
+    }
+
+    /**
+     * Makes the logged commands durable, then sends the given results and clears them.
+     * @param results the results to send
+     * @param writer the output to send the results to
+     * @throws IOException in case of exceptions to writing
+     */
+    private void sendResults(final List<String> results, final BufferedWriter writer)
+            throws IOException {
+        if (database.getCommandLog() != null) {
+            database.getCommandLog().sync();
+        }
+
+        for (String result : results) {
+            writer.write(result);
+            writer.newLine();
+        }
+        writer.flush();
+
+        results.clear();
+    }
+
+    /**
+     * Parses and executes a single action on the action thread pool, waiting for its result.
+     * @param line the JSON action
+     * @return the JSON result, with the action ID and the output message, or an error
+     * @throws IOException if interrupted while waiting
+     */
+    private JSONObject executeOnPool(final String line) throws IOException {
+        try {
+            return actionExecutor.submit(() -> execute(line)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while executing an action");
+        } catch (ExecutionException e) {
+            // Rethrow the errors as they are, wrapping anything else
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Parses and executes a single action.
+     * @param line the JSON action
+     * @return the JSON result, with the action ID and the output message, or an error
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject execute(final String line) {
+        JSONObject result = new JSONObject();
+
+        // Parse the action and create it, reporting unknown or missing types as invalid
+        Action action;
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            ActionInputData actionInput = StreamingInputLoader.readActionInput(
+                    parser, StreamingInputLoader.defaultNumber(database));
+            action = actionInput == null ? null : ActionFactory.createAction(actionInput);
+        } catch (IOException | RuntimeException e) {
+            result.put("error", "invalid action: " + e.getMessage());
+            return result;
+        }
+
+        if (action == null) {
+            result.put("error", "unknown action type");
+            return result;
+        }
+
+        // Execute the action, alongside the other read-only actions or alone if it changes
+        // the database, reporting the failures of invalid actions (like unknown users)
+        // instead of stopping the server
+        result.put(Constants.ID_STRING, action.getID());
+        Lock lock = action.isReadOnly() ? database.readLock() : database.writeLock();
+        lock.lock();
+        try {
+            result.put(Constants.MESSAGE, action.execute(database));
+        } catch (RuntimeException e) {
+            result.put("error", "action failed: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+
+        return result;
+    }
+}
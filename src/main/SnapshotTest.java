@@ -0,0 +1,94 @@
+package main;
+
+import action.Action;
+import common.Constants;
+import database.Database;
+import fileio.CatalogSnapshot;
+import fileio.StreamingInputLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Use this to check that catalog snapshots restore the databases they were written from.
+ * The catalog of each test file, and of each file made for snapshots only (for example,
+ * with genres unknown to the catalog), is saved to a snapshot and restored into a new
+ * database. The file's actions must then give the same outputs on both databases.
+ */
+public final class SnapshotTest {
+    /**
+     * for coding style
+     */
+    private SnapshotTest() {
+    }
+
+    /**
+     * @param args unused
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        Path snapshotPath = Files.createTempFile("catalog", ".snapshot");
+        int passed = 0;
+        int total = 0;
+
+        try {
+            for (String directoryPath
+                    : List.of(Constants.TESTS_PATH, Constants.SNAPSHOT_TESTS_PATH)) {
+                File[] inputDir = new File(directoryPath).listFiles();
+                if (inputDir == null) {
+                    continue;
+                }
+
+                Arrays.sort(inputDir);
+                for (File file : inputDir) {
+                    boolean isPassed = restoresSameOutputs(file, snapshotPath);
+                    System.out.println(file.getName() + (isPassed ? " PASSED" : " FAILED"));
+                    passed += isPassed ? 1 : 0;
+                    ++total;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(snapshotPath);
+        }
+
+        System.out.println("TOTAL = " + passed + "/" + total);
+    }
+
+    /**
+     * Loads the given input file, saves its catalog to a snapshot and restores it into a new
+     * database, then executes the file's actions, in order, on both databases.
+     * @param file the input file
+     * @param snapshotPath the path to write the snapshot to
+     * @return true if the actions give the same outputs on both databases
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    private static boolean restoresSameOutputs(final File file, final Path snapshotPath)
+            throws IOException {
+        // Load the input file and save its catalog
+        Database database = new Database();
+        Main.addIndexes(database);
+        new StreamingInputLoader(file.getAbsolutePath()).load(database);
+        CatalogSnapshot.write(database, snapshotPath);
+
+        // Restore the catalog into a new database and give it the same actions
+        Database restoredDatabase = new Database();
+        Main.addIndexes(restoredDatabase);
+        CatalogSnapshot.read(snapshotPath, restoredDatabase);
+        List<Action> actions = database.retrieveRepository(Action.class).retrieveAll();
+        restoredDatabase.add(actions, Action.class);
+
+        // Compare the outputs of the actions
+        for (Action action : actions) {
+            if (!Objects.equals(action.execute(database), action.execute(restoredDatabase))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
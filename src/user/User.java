@@ -1,14 +1,20 @@
 package user;
 
+import action.managers.search.VideoSearch;
 import database.Database;
 import database.DatabaseTrackable;
+import database.Repository;
+import database.VideoStatistics;
 import entertainment.Video;
 import common.ActionExceptions;
 
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 public final class User implements DatabaseTrackable {
     /**
@@ -21,27 +27,69 @@ public final class User implements DatabaseTrackable {
 
     private final String username;
     private final SubscriptionType subscriptionType;
-    private final HashSet<String> favourites;
-    private final LinkedHashMap<String, Integer> watchedVideos;
+
+    /**
+     * The favourites and the history given when creating the user, by video title.
+     * They are turned into video IDs once the user is added to the database.
+     */
+    private Set<String> initialFavourites;
+    private Map<String, Integer> initialHistory;
+
+    /**
+     * The IDs of the videos added to favourites and of the watched videos.
+     */
+    private final BitSet favourites = new BitSet();
+    private final BitSet watchedVideos = new BitSet();
+
+    /**
+     * The number of times the user has watched each video, in the order of the IDs in
+     * watchedVideos. The count of a video is at the rank of its ID, the number of watched
+     * IDs before it, so only the watched videos take up space.
+     */
+    private int[] viewCounts = new int[0];
 
     /**
      * The number of ratings the user has given.
      */
     private int ratingCount;
 
+    /**
+     * The position in the database's video list before which the user has watched every
+     * video. The history only grows and videos are only added at the end of the list,
+     * so the position only moves forward.
+     */
+    private volatile int unwatchedCursor;
+
     public User(final String username, final SubscriptionType subscriptionType,
                 final List<String> favourites, final Map<String, Integer> watchedVideos) {
         // Set the basic information
         this.username = username;
         this.subscriptionType = subscriptionType;
 
-        // Add all the elements in the favourites list to the hashset
-        this.favourites = new HashSet<>();
-        this.favourites.addAll(favourites);
+        // Keep the favourites and the history until the user is added to the database
+        this.initialFavourites = new LinkedHashSet<>(favourites);
+        this.initialHistory = new LinkedHashMap<>(watchedVideos);
+    }
 
-        // Add all the key-value pairs in the history map to the hashmap
-        this.watchedVideos = new LinkedHashMap<>();
-        this.watchedVideos.putAll(watchedVideos);
+    /**
+     * Creates a user with the favourites and the history already given by video IDs,
+     * as saved in a snapshot. The IDs must match the ones of the database the user is added to.
+     * @param username the username
+     * @param subscriptionType the subscription type
+     * @param favourites the IDs of the videos added to favourites
+     * @param watchedVideos the IDs of the watched videos
+     * @param viewCounts the view counts, in the order of the watched video IDs
+     * @param ratingCount the number of ratings the user has given
+     */
+    public User(final String username, final SubscriptionType subscriptionType,
+                final BitSet favourites, final BitSet watchedVideos,
+                final int[] viewCounts, final int ratingCount) {
+        this.username = username;
+        this.subscriptionType = subscriptionType;
+        this.favourites.or(favourites);
+        this.watchedVideos.or(watchedVideos);
+        this.viewCounts = viewCounts.clone();
+        this.ratingCount = ratingCount;
     }
 
     public String getUsername() {
@@ -58,82 +106,185 @@ public final class User implements DatabaseTrackable {
 
     /**
      * Checks if the user has watched the given video.
-     * @param videoTitle the title of the video
+     * @param video the video to check
      * @return true if the user has NOT watched the video
      */
-    public boolean hasNotWatched(final String videoTitle) {
-        return !watchedVideos.containsKey(videoTitle);
+    public boolean hasNotWatched(final Video video) {
+        return !watchedVideos.get(video.getId());
+    }
+
+    /**
+     * Gets the first ID, starting from the given one, of a video the user hasn't watched.
+     * @param fromId the ID to start from
+     * @return the first unwatched video ID (which may not belong to any video yet)
+     */
+    public int nextUnwatchedId(final int fromId) {
+        return watchedVideos.nextClearBit(fromId);
+    }
+
+    /**
+     * Gets the first video of the given list the user hasn't watched, moving the user's
+     * cursor past the watched videos before it. Concurrent calls may move the cursor
+     * at the same time, as any position they store has only watched videos before it.
+     * @param videos all the videos of the user's database, in database order
+     * @return the first unwatched video, or null if the user has watched all the videos
+     */
+    public Video getFirstUnwatchedVideo(final List<Video> videos) {
+        int cursor = unwatchedCursor;
+        while (cursor < videos.size() && !hasNotWatched(videos.get(cursor))) {
+            ++cursor;
+        }
+        unwatchedCursor = cursor;
+
+        return cursor < videos.size() ? videos.get(cursor) : null;
     }
 
     /**
      * Checks if the user has added the given video to favourites.
-     * @param videoTitle the title of the video
+     * @param video the video to check
      * @return true if the video is in the favourites collection
      */
-    public boolean hasFavourite(final String videoTitle) {
-        return favourites.contains(videoTitle);
+    public boolean hasFavourite(final Video video) {
+        return favourites.get(video.getId());
     }
 
     /**
      * Gets the user's view count of the given video.
-     * @param videoTitle the title of the video
+     * @param video the video to check
      * @return the view count
      */
-    public int getViews(final String videoTitle) {
-        return watchedVideos.getOrDefault(videoTitle, 0);
+    public int getViews(final Video video) {
+        return getViews(video.getId());
+    }
+
+    /**
+     * Gets the IDs of the videos the user has added to favourites.
+     * @return a copy of the favourites bitset
+     */
+    public BitSet getFavouriteIds() {
+        return (BitSet) favourites.clone();
+    }
+
+    /**
+     * Gets the IDs of the videos the user has watched.
+     * @return a copy of the watched videos bitset
+     */
+    public BitSet getWatchedVideoIds() {
+        return (BitSet) watchedVideos.clone();
+    }
+
+    /**
+     * Gets the user's view counts of the watched videos.
+     * @return a copy of the view counts, in the order of the watched video IDs
+     */
+    public int[] getViewCounts() {
+        return viewCounts.clone();
+    }
+
+    /**
+     * Gets the user's view count of the video with the given ID.
+     * @param videoId the ID of the video
+     * @return the view count
+     */
+    public int getViews(final int videoId) {
+        return watchedVideos.get(videoId) ? viewCounts[getRank(videoId)] : 0;
+    }
+
+    /**
+     * Gets the rank of the given video ID in the watched videos, the number of watched
+     * IDs before it, which is the position of its view count.
+     * @param videoId the ID of the video
+     * @return the rank of the ID
+     */
+    private int getRank(final int videoId) {
+        int rank = 0;
+        for (int id = watchedVideos.nextSetBit(0); id >= 0 && id < videoId;
+             id = watchedVideos.nextSetBit(id + 1)) {
+            ++rank;
+        }
+
+        return rank;
+    }
+
+    /**
+     * Sets the user's view count of the video with the given ID and marks it as watched.
+     * @param videoId the ID of the video
+     * @param views the new view count
+     */
+    private void setViews(final int videoId, final int views) {
+        int rank = getRank(videoId);
+
+        // Make room for the count of a newly watched video
+        if (!watchedVideos.get(videoId)) {
+            int[] counts = new int[viewCounts.length + 1];
+            System.arraycopy(viewCounts, 0, counts, 0, rank);
+            System.arraycopy(viewCounts, rank, counts, rank + 1, viewCounts.length - rank);
+            viewCounts = counts;
+            watchedVideos.set(videoId);
+        }
+
+        viewCounts[rank] = views;
     }
 
     /**
      * Adds the given video to favourites.
+     * @param database the database of the user
      * @param videoTitle the title of the video
      * @throws ActionExceptions.EntryNotFoundException if the video is not found in the database
      * @throws ActionExceptions.AlreadyFavouriteException if the video is already a favourite
      * @throws ActionExceptions.NotWatchedException if the user hasn't watched the video
      */
-    public void addFavourite(final String videoTitle)
+    public void addFavourite(final Database database, final String videoTitle)
             throws ActionExceptions.EntryNotFoundException,
             ActionExceptions.AlreadyFavouriteException,
             ActionExceptions.NotWatchedException {
         // Check the video's existence within the database
-        if (Database.getInstance().retrieveEntity(Video.class, videoTitle) == null) {
+        Video video = database.retrieveEntity(Video.class, videoTitle);
+        if (video == null) {
             throw new ActionExceptions.EntryNotFoundException();
         }
 
         // Check if the video has been watched
-        if (hasNotWatched(videoTitle)) {
+        if (hasNotWatched(video)) {
             throw new ActionExceptions.NotWatchedException();
         }
 
         // Check if the video has already been added to favourites
-        if (favourites.contains(videoTitle)) {
+        if (hasFavourite(video)) {
             throw new ActionExceptions.AlreadyFavouriteException();
         }
 
         // If it exists and has been watched, add it to the favourites list
-        favourites.add(videoTitle);
+        favourites.set(video.getId());
+
+        // Update the video's favourite count
+        database.getVideoStatistics().addFavourite(videoTitle);
     }
 
     /**
      * Increments the view count for the given video.
+     * @param database the database of the user
      * @param videoTitle the title of the video
      * @return the new view count
      * @throws ActionExceptions.EntryNotFoundException if the video is not found in the database
      */
-    public int addView(final String videoTitle)
+    public int addView(final Database database, final String videoTitle)
             throws ActionExceptions.EntryNotFoundException {
         // Check the video's existence within the database
-        if (Database.getInstance().retrieveEntity(Video.class, videoTitle) == null) {
+        Video video = database.retrieveEntity(Video.class, videoTitle);
+        if (video == null) {
             throw new ActionExceptions.EntryNotFoundException();
         }
 
-        // Get the video's views (0 if it has not been watched)
-        int views = watchedVideos.getOrDefault(videoTitle, 0);
+        // Add / Update the view count of the video (0 if it has not been watched)
+        int views = getViews(video) + 1;
+        setViews(video.getId(), views);
 
-        // Add / Update the view count of the video
-        watchedVideos.put(videoTitle, views + 1);
+        // Update the video's total views
+        database.getVideoStatistics().addViews(videoTitle, 1);
 
         // Return the new view count
-        return views + 1;
+        return views;
     }
 
     /**
@@ -143,6 +294,46 @@ public final class User implements DatabaseTrackable {
         ++ratingCount;
     }
 
+    /**
+     * Turns the user's favourites and history into video IDs, if given by title, and
+     * registers them in the database's video statistics and leaderboards.
+     * @param database the database the user has been added to
+     */
+    @Override
+    public void onAddedToDatabase(final Database database) {
+        Repository<Video> videos = database.retrieveRepository(Video.class);
+
+        if (initialFavourites != null) {
+            initialFavourites.forEach(videoTitle ->
+                    favourites.set(videos.retrieveId(videoTitle)));
+
+            // Order the history by video ID, to lay the view counts out by rank
+            TreeMap<Integer, Integer> history = new TreeMap<>();
+            initialHistory.forEach((videoTitle, views) ->
+                    history.put(videos.retrieveId(videoTitle), views));
+            history.keySet().forEach(watchedVideos::set);
+            viewCounts = history.values().stream().mapToInt(Integer::intValue).toArray();
+
+            // The titles are no longer needed
+            initialFavourites = null;
+            initialHistory = null;
+        }
+
+        VideoStatistics videoStatistics = database.getVideoStatistics();
+        favourites.stream().forEach(videoId -> {
+            String videoTitle = videos.retrieveKey(videoId);
+            videoStatistics.addFavourite(videoTitle);
+            VideoSearch.updateLeaderboard(database, VideoSearch.FAVOURITE_LEADERBOARD, videoTitle);
+        });
+        int rank = 0;
+        for (int videoId = watchedVideos.nextSetBit(0); videoId >= 0;
+             videoId = watchedVideos.nextSetBit(videoId + 1)) {
+            String videoTitle = videos.retrieveKey(videoId);
+            videoStatistics.addViews(videoTitle, viewCounts[rank++]);
+            VideoSearch.updateLeaderboard(database, VideoSearch.VIEWS_LEADERBOARD, videoTitle);
+        }
+    }
+
     /**
      * Gets the primary key for the database, the username.
      * @return a string containing the username
@@ -11,9 +11,11 @@ import org.json.simple.JSONObject;
 import user.User;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
+import java.util.Set;
 
 /**
  * The class contains static methods that helps with parsing.
@@ -233,4 +235,57 @@ public final class Utils {
 
         return mapVideos;
     }
+
+    /**
+     * Checks if the given character is part of a word, as considered by the word
+     * boundaries of regular expressions (letters, digits and underscores).
+     * @param codePoint the character to check
+     * @return true if the character is part of a word
+     */
+    private static boolean isWordCharacter(final int codePoint) {
+        return codePoint == '_' || Character.isLetterOrDigit(codePoint);
+    }
+
+    /**
+     * Splits the given text into its words, the longest sequences of word characters
+     * found between word boundaries. Non-spacing marks are kept in the word they follow.
+     * @param text the text to split
+     * @return the set of the words in the text
+     */
+    public static Set<String> splitIntoWords(final String text) {
+        Set<String> words = new HashSet<>();
+        int wordStart = -1;
+
+        for (int i = 0; i < text.length(); i += Character.charCount(text.codePointAt(i))) {
+            int codePoint = text.codePointAt(i);
+            boolean isWordPart = isWordCharacter(codePoint)
+                    || (wordStart != -1
+                    && Character.getType(codePoint) == Character.NON_SPACING_MARK);
+
+            if (isWordPart && wordStart == -1) {
+                // A new word starts
+                wordStart = i;
+            } else if (!isWordPart && wordStart != -1) {
+                // The current word ends
+                words.add(text.substring(wordStart, i));
+                wordStart = -1;
+            }
+        }
+
+        // Add the word at the end of the text
+        if (wordStart != -1) {
+            words.add(text.substring(wordStart));
+        }
+
+        return words;
+    }
+
+    /**
+     * Checks if the given text is a single word, made only of word characters.
+     * @param text the text to check
+     * @return true if the text is a single word
+     */
+    public static boolean isSingleWord(final String text) {
+        return !text.isEmpty() && text.codePoints().allMatch(Utils::isWordCharacter);
+    }
 }